@@ -1,5 +1,7 @@
 package io.roach.workload.bank;
 
+import javax.sql.DataSource;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
@@ -14,6 +16,8 @@ import io.roach.workload.bank.repository.AccountRepository;
 import io.roach.workload.bank.repository.TransactionRepository;
 import io.roach.workload.bank.service.AccountService;
 import io.roach.workload.bank.service.AccountServiceImpl;
+import io.roach.workload.bank.service.CteTransactionServiceImpl;
+import io.roach.workload.bank.service.SavepointTransactionServiceImpl;
 import io.roach.workload.bank.service.TransactionService;
 import io.roach.workload.bank.service.TransactionServiceImpl;
 import io.roach.workload.common.config.AopConfig;
@@ -25,6 +29,9 @@ import io.roach.workload.common.config.JpaConfig;
 @EnableAspectJAutoProxy(proxyTargetClass = true)
 @Profiles.Bank
 public class BankConfig {
+    @Autowired
+    private DataSource dataSource;
+
     @Autowired
     @Qualifier("jdbcAccountRepository")
     private AccountRepository accountJdbcRepository;
@@ -58,6 +65,16 @@ public class BankConfig {
         return new TransactionServiceImpl(accountJdbcRepository, transactionJdbcRepository);
     }
 
+    @Bean
+    public TransactionService transactionServiceJdbcCte() {
+        return new CteTransactionServiceImpl(dataSource);
+    }
+
+    @Bean
+    public TransactionService transactionServiceJdbcSavepoint() {
+        return new SavepointTransactionServiceImpl(accountJdbcRepository, transactionJdbcRepository);
+    }
+
     @Bean
     public TransactionService transactionServiceJpa() {
         return new TransactionServiceImpl(accountJpaRepository, transactionJpaRepository);
@@ -6,9 +6,21 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Currency;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 import java.util.stream.IntStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,15 +35,23 @@ import io.roach.workload.bank.model.Account;
 import io.roach.workload.bank.model.AccountSummary;
 import io.roach.workload.bank.model.Region;
 import io.roach.workload.bank.model.TransactionRequest;
+import io.roach.workload.bank.repository.CopyAccountLoader;
 import io.roach.workload.bank.service.AccountService;
 import io.roach.workload.bank.service.BadRequestException;
 import io.roach.workload.bank.service.TransactionService;
 import io.roach.workload.common.AbstractWorkload;
 import io.roach.workload.common.jpa.DataSourceHelper;
+import io.roach.workload.common.jpa.RoutingDataSource;
+import io.roach.workload.common.util.AliasTable;
 import io.roach.workload.common.util.DurationFormat;
+import io.roach.workload.common.util.FenwickSampler;
+import io.roach.workload.common.util.KeyDistribution;
+import io.roach.workload.common.util.LoadProfile;
 import io.roach.workload.common.util.Money;
 import io.roach.workload.common.util.Multiplier;
+import io.roach.workload.common.util.Pacer;
 import io.roach.workload.common.util.RandomData;
+import io.roach.workload.common.util.WeightedSampler;
 
 @ShellComponent
 @ShellCommandGroup("Workload")
@@ -44,10 +64,20 @@ public class BankWorkload extends AbstractWorkload {
             "Cockroaches can run up to three miles in an hour"
     );
 
+    private static final int MAX_SELECT_ATTEMPTS = 64;
+
     @Autowired
     @Qualifier("transactionServiceJdbc")
     private TransactionService transactionServiceJdbc;
 
+    @Autowired
+    @Qualifier("transactionServiceJdbcCte")
+    private TransactionService transactionServiceJdbcCte;
+
+    @Autowired
+    @Qualifier("transactionServiceJdbcSavepoint")
+    private TransactionService transactionServiceJdbcSavepoint;
+
     @Autowired
     @Qualifier("transactionServiceJpa")
     private TransactionService transactionServiceJpa;
@@ -60,6 +90,9 @@ public class BankWorkload extends AbstractWorkload {
     @Qualifier("accountServiceJpa")
     private AccountService accountServiceJpa;
 
+    @Autowired
+    private CopyAccountLoader copyAccountLoader;
+
     @Override
     public String prompt() {
         return "bank:$ ";
@@ -70,7 +103,8 @@ public class BankWorkload extends AbstractWorkload {
             @ShellOption(help = "number of accounts per region", defaultValue = "10_000") String accounts,
             @ShellOption(help = "regions to use (all|main|<any>)", defaultValue = "all") String regions,
             @ShellOption(help = "initial account balance in region currency", defaultValue = "100000.00") String initialBalance,
-            @ShellOption(help = "data access method (jdbc|jpa)", defaultValue = "jdbc") String method,
+            @ShellOption(help = "data access method (jdbc|jpa|copy)", defaultValue = "jdbc") String method,
+            @ShellOption(help = "number of accounts per COPY stream in copy mode", defaultValue = "100_000") String chunkSize,
             @ShellOption(help = "drop schema", defaultValue = "false") boolean drop,
             @ShellOption(help = "skip create schema", defaultValue = "false") boolean skipCreate
     ) {
@@ -84,8 +118,6 @@ public class BankWorkload extends AbstractWorkload {
             DataSourceHelper.executeScripts(dataSource, "db/bank/create-bank.sql");
         }
 
-        final AccountService accountService = getAccountService(method);
-
         final List<Region> matchingRegions = matchingRegions(regions);
 
         int accountsPerRegion = Multiplier.parseInt(accounts);
@@ -93,6 +125,15 @@ public class BankWorkload extends AbstractWorkload {
         console.green("Creating %,d accounts per %d regions: %s\n",
                 accountsPerRegion, matchingRegions.size(), matchingRegions);
 
+        if ("copy".equals(method)) {
+            long total = bulkLoadAccounts(matchingRegions, accountsPerRegion, initialBalance,
+                    Multiplier.parseInt(chunkSize));
+            console.green("Bank schema ready - %,d account(s) in total\n", total);
+            return;
+        }
+
+        final AccountService accountService = getAccountService(method);
+
         AtomicInteger total = new AtomicInteger();
 
         matchingRegions.forEach(region -> {
@@ -109,12 +150,85 @@ public class BankWorkload extends AbstractWorkload {
         console.green("Bank schema ready - %,d account(s) in total\n", total.get());
     }
 
+    private long bulkLoadAccounts(List<Region> regions, int accountsPerRegion, String initialBalance,
+                                  int chunkSize) {
+        final LongAdder rowsLoaded = new LongAdder();
+        final AtomicInteger failedChunks = new AtomicInteger();
+        final List<Future<?>> futures = new ArrayList<>();
+        final long startTime = System.nanoTime();
+        final long totalRows = (long) accountsPerRegion * regions.size();
+
+        ScheduledFuture<?> progress = scheduledExecutorService.scheduleAtFixedRate(() -> {
+            double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+            long rows = rowsLoaded.sum();
+            console.yellow("Loaded %,d of %,d accounts (%.1f%%) at %,.0f rows/s, %d chunk(s) failed\n",
+                    rows, totalRows, rows * 100.0 / totalRows, rows / seconds, failedChunks.get());
+        }, 5, 5, TimeUnit.SECONDS);
+
+        try {
+            // Fan out over regions and key ranges, each chunk on its own connection
+            regions.forEach(region -> {
+                final Money balance = Money.of(initialBalance, region.currency());
+                int chunk = 1;
+                for (long from = 0; from < accountsPerRegion; from += chunkSize) {
+                    final long start = from;
+                    final long end = Math.min(from + chunkSize, accountsPerRegion);
+                    futures.add(boundedExecutor.submit(() -> {
+                        // Rows of a failed chunk are rolled back, so take them off the progress count
+                        final LongAdder chunkRows = new LongAdder();
+                        try {
+                            copyAccountLoader.copyAccounts(region.name(), balance, start, end, rows -> {
+                                chunkRows.add(rows);
+                                rowsLoaded.add(rows);
+                            });
+                        } catch (RuntimeException e) {
+                            rowsLoaded.add(-chunkRows.sum());
+                            failedChunks.incrementAndGet();
+                            throw e;
+                        }
+                    }, "loader (" + region.name() + ") #" + chunk++, Duration.ZERO));
+                }
+            });
+
+            // Task errors are caught and logged by the executor, failures are counted by the tasks
+            for (Future<?> future : futures) {
+                if (future != null) {
+                    future.get();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            progress.cancel(false);
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+        console.green("Loaded %,d accounts in %.1fs (%,.0f rows/s)\n",
+                rowsLoaded.sum(), seconds, rowsLoaded.sum() / seconds);
+        if (failedChunks.get() > 0) {
+            console.red("%d chunk(s) failed - see log for details\n", failedChunks.get());
+        }
+
+        return rowsLoaded.sum();
+    }
+
     private AccountService getAccountService(String api) {
-        return "jdbc".equals(api) ? this.accountServiceJdbc : this.accountServiceJpa;
+        return api.startsWith("jdbc") ? this.accountServiceJdbc : this.accountServiceJpa;
     }
 
     private TransactionService getTransactionService(String api) {
-        return "jdbc".equals(api) ? this.transactionServiceJdbc : this.transactionServiceJpa;
+        if ("jdbc".equals(api)) {
+            return this.transactionServiceJdbc;
+        } else if ("jdbc-cte".equals(api)) {
+            return this.transactionServiceJdbcCte;
+        } else if ("jdbc-savepoint".equals(api)) {
+            return this.transactionServiceJdbcSavepoint;
+        } else if ("jpa".equals(api)) {
+            return this.transactionServiceJpa;
+        }
+        throw new BadRequestException("Unknown data access method (jdbc|jdbc-cte|jdbc-savepoint|jpa): " + api);
     }
 
     private List<Region> matchingRegions(String regions) {
@@ -130,11 +244,16 @@ public class BankWorkload extends AbstractWorkload {
     @ShellMethod(value = "Run bank workload")
     public void run(
             @ShellOption(help = "number of threads per region", defaultValue = "1") int threads,
-            @ShellOption(help = "data access method (jdbc|jpa)", defaultValue = "jdbc") String method,
+            @ShellOption(help = "data access method, comma separated to compare (jdbc|jdbc-cte|jdbc-savepoint|jpa)", defaultValue = "jdbc") String method,
             @ShellOption(help = "main region to use (random|<any>)", defaultValue = "random") String mainRegion,
             @ShellOption(help = "regions to use (all|main|<any>)", defaultValue = "all") String regions,
             @ShellOption(help = "number of account legs per region (multiple of 2)", defaultValue = "2") int legs,
+            @ShellOption(help = "max number of accounts per region to use", defaultValue = "5000") String accountLimit,
+            @ShellOption(help = "credit account key distribution (uniform|zipf:theta|hotspot:ops:keys|sequential|latest)", defaultValue = "uniform") String distribution,
             @ShellOption(help = "execution duration", defaultValue = "30m") String duration,
+            @ShellOption(help = "target rate for open-loop mode, e.g. 5000/s (none for closed-loop)", defaultValue = "none") String rate,
+            @ShellOption(help = "load profile of level@duration stages, threads per region, e.g. 10@1m,50@2m or 500/s@1m,1000/s@1m (none for fixed load)", defaultValue = "none") String profile,
+            @ShellOption(help = "pre-generated request buffer size per region (0 generates inline)", defaultValue = "1024") int bufferSize,
             @ShellOption(help = "enable verbose logging", defaultValue = "false") boolean trace
     ) {
 
@@ -151,66 +270,179 @@ public class BankWorkload extends AbstractWorkload {
             throw new BadRequestException("No matching regions: " + regions);
         }
 
-        final TransactionService transactionService = getTransactionService(method);
+        final Map<String, TransactionService> transactionServices = new LinkedHashMap<>();
+        Arrays.stream(method.split(",")).map(String::trim)
+                .forEach(m -> transactionServices.put(m, getTransactionService(m)));
 
         final AccountService accountService = getAccountService(method);
 
+        final LoadProfile loadProfile = LoadProfile.parse(profile);
+
+        final Duration runtimeDuration = loadProfile != null
+                ? loadProfile.getTotalDuration()
+                : DurationFormat.parseDuration(duration);
+
+        final Pacer pacer = createPacer(loadProfile, rate);
+
+        final int threadsPerRegion = loadProfile != null && !loadProfile.isRateLevels()
+                ? loadProfile.getMaxWorkers()
+                : threads;
+
+        final int accountLimitNum = Multiplier.parseInt(accountLimit);
+
+        final long deadline = System.currentTimeMillis() + runtimeDuration.toMillis();
+
         console.green("Scheduling workers for regions: %s\n", matchingRegions);
 
         matchingRegions
                 .parallelStream()
                 .forEach(region -> {
                     final List<Account> regionAccounts = Collections
-                            .unmodifiableList(accountService.findAccountsByRegion(region.name(), 0, 5000));
+                            .unmodifiableList(accountService.findAccountsByRegion(region.name(), 0, accountLimitNum));
 
-                    Duration runtimeDuration = DurationFormat.parseDuration(duration);
+                    if (regionAccounts.size() < legs) {
+                        console.red("Region %s has fewer accounts than legs (%d) - skipping\n", region, legs);
+                        return;
+                    }
 
-                    console.green("Region %s accounts %d\n", region, regionAccounts.size());
+                    final KeyDistribution keyDistribution = KeyDistribution.parse(distribution, regionAccounts.size());
 
-                    final Runnable unitOfWork = () -> {
-                        TransactionRequest.Builder requestBuilder = TransactionRequest.builder()
-                                .withRegion(transactionRegion.name())
-                                .withTransactionType("ABC")
-                                .withBookingDate(LocalDate.now())
-                                .withTransferDate(LocalDate.now());
-
-                        final List<Account> temporalAccounts = new ArrayList<>(regionAccounts);
-                        final Currency currency = temporalAccounts.get(0).getBalance().getCurrency();
-                        final Money transferAmount = RandomData.randomMoneyBetween("1.00", "10.00", currency);
-
-                        IntStream.range(0, legs).forEach(value -> {
-                            // Debits gravitate towards accounts with highest balance
-                            Account account = value % 2 == 0
-                                    ? RandomData.selectRandomWeighted(temporalAccounts)
-                                    : RandomData.selectRandom(temporalAccounts);
-                            temporalAccounts.remove(account);
-
-                            Money amount = value % 2 == 0 ? transferAmount.negate() : transferAmount;
-
-                            requestBuilder
-                                    .addLeg()
-                                    .withId(account.getUUID(), account.getRegion())
-                                    .withAmount(amount)
-                                    .withNote(RandomData.selectRandom(QUOTES))
-                                    .then();
-
-                            if (trace) {
-                                console.green("%s %s to %s, balance before: %s, after: %s\n",
-                                        amount.isNegative() ? "Debit" : "Credit",
-                                        amount,
-                                        account.getName(),
-                                        account.getBalance(),
-                                        account.getBalance().plus(amount));
-                            }
-                        });
+                    console.green("Region %s accounts %d distribution %s\n", region, regionAccounts.size(),
+                            keyDistribution);
 
-                        transactionService.submitTransaction(requestBuilder.build());
-                    };
+                    final Function<TransactionService, BooleanSupplier> unitOfWork;
+
+                    if (bufferSize > 0) {
+                        // Generate requests off the critical path and let the writers only take from the buffer
+                        final BlockingQueue<TransactionRequest> requestBuffer = new ArrayBlockingQueue<>(bufferSize);
+
+                        // Owned by the generator and kept in sync with the submitted transfer amounts
+                        final FenwickSampler<Account> sampler = FenwickSampler.of(regionAccounts);
 
-                    IntStream.rangeClosed(1, threads).forEach(value -> {
-                        boundedExecutor.submit(unitOfWork, "writer (" + region.name() + ") " + value, runtimeDuration);
+                        // Generated requests are counted by the writers submitting them
+                        final String generatorName = "generator (" + region.name() + ")";
+                        boundedExecutor.getCallMetric().excludeFromTotals(generatorName);
+
+                        boundedExecutor.submitPolling(() -> {
+                            try {
+                                return offerUntil(requestBuffer, newTransactionRequest(transactionRegion, sampler,
+                                        keyDistribution, legs, trace), deadline);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return false;
+                            }
+                        }, generatorName, runtimeDuration, null, null);
+
+                        unitOfWork = transactionService -> () -> {
+                            try {
+                                TransactionRequest request = requestBuffer.poll(1, TimeUnit.SECONDS);
+                                if (request == null) {
+                                    return false;
+                                }
+                                transactionService.submitTransaction(request);
+                                return true;
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return false;
+                            }
+                        };
+                    } else {
+                        // Immutable and shared by all writers of the region
+                        final AliasTable<Account> sampler = AliasTable.of(regionAccounts);
+
+                        unitOfWork = transactionService -> () -> {
+                            transactionService.submitTransaction(
+                                    newTransactionRequest(transactionRegion, sampler, keyDistribution, legs, trace));
+                            return true;
+                        };
+                    }
+
+                    // One set of writers per method, with the method in the metric name when comparing.
+                    // Writers only touch accounts in their region, which is used as the routing key.
+                    transactionServices.forEach((name, transactionService) -> {
+                        final String prefix = transactionServices.size() > 1 ? "writer " + name : "writer";
+                        final BooleanSupplier task = RoutingDataSource.withRoutingKey(region.name(),
+                                unitOfWork.apply(transactionService));
+                        IntStream.rangeClosed(1, threadsPerRegion).forEach(value -> {
+                            boundedExecutor.submitPolling(task, prefix + " (" + region.name() + ") " + value,
+                                    runtimeDuration, pacer, loadProfile != null ? loadProfile.gate(value) : null);
+                        });
                     });
                 });
+
+        if (loadProfile != null) {
+            startLoadProfile(loadProfile, pacer);
+        }
+    }
+
+    private TransactionRequest newTransactionRequest(Region transactionRegion,
+                                                     WeightedSampler<Account> sampler,
+                                                     KeyDistribution keyDistribution,
+                                                     int legs,
+                                                     boolean trace) {
+        final List<Account> regionAccounts = sampler.getItems();
+
+        TransactionRequest.Builder requestBuilder = TransactionRequest.builder()
+                .withRegion(transactionRegion.name())
+                .withTransactionType("ABC")
+                .withBookingDate(LocalDate.now())
+                .withTransferDate(LocalDate.now());
+
+        final Currency currency = regionAccounts.get(0).getBalance().getCurrency();
+        final Money transferAmount = RandomData.randomMoneyBetween("1.00", "10.00", currency);
+        final int[] selectedIndexes = new int[legs];
+
+        for (int leg = 0; leg < legs; leg++) {
+            // Debits gravitate towards accounts with highest balance and credits follow the key
+            // distribution. Rejecting already selected accounts avoids copying the region
+            // account list per request, with a uniform fallback for narrow hot sets.
+            int index;
+            int attempts = 0;
+            do {
+                if (++attempts > MAX_SELECT_ATTEMPTS) {
+                    index = ThreadLocalRandom.current().nextInt(regionAccounts.size());
+                } else {
+                    index = leg % 2 == 0
+                            ? sampler.nextIndex()
+                            : keyDistribution.nextIndex();
+                }
+            } while (contains(selectedIndexes, leg, index));
+            selectedIndexes[leg] = index;
+
+            Account account = regionAccounts.get(index);
+            Money amount = leg % 2 == 0 ? transferAmount.negate() : transferAmount;
+
+            if (sampler instanceof FenwickSampler) {
+                ((FenwickSampler<Account>) sampler).add(index, amount.getAmount().doubleValue());
+            }
+
+            requestBuilder
+                    .addLeg()
+                    .withId(account.getUUID(), account.getRegion())
+                    .withAmount(amount)
+                    .withNote(RandomData.selectRandom(QUOTES))
+                    .then();
+
+            if (trace) {
+                console.green("%s %s to %s, balance before: %s, after: %s\n",
+                        amount.isNegative() ? "Debit" : "Credit",
+                        amount,
+                        account.getName(),
+                        account.getBalance(),
+                        account.getBalance().plus(amount));
+            }
+        }
+
+        return requestBuilder.build();
+    }
+
+    private static boolean contains(int[] indexes, int length, int index) {
+        for (int i = 0; i < length; i++) {
+            if (indexes[i] == index) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @ShellMethod(value = "Run balance query workload")
@@ -218,7 +450,11 @@ public class BankWorkload extends AbstractWorkload {
             @ShellOption(help = "number of threads per region", defaultValue = "1") int threads,
             @ShellOption(help = "data access method (jdbc|jpa)", defaultValue = "jdbc") String method,
             @ShellOption(help = "regions to use (all|main|<any>)", defaultValue = "all") String regions,
+            @ShellOption(help = "max number of accounts per region to use", defaultValue = "5000") String accountLimit,
+            @ShellOption(help = "account key distribution (uniform|zipf:theta|hotspot:ops:keys|sequential|latest)", defaultValue = "uniform") String distribution,
             @ShellOption(help = "execution duration", defaultValue = "30m") String duration,
+            @ShellOption(help = "target rate for open-loop mode, e.g. 5000/s (none for closed-loop)", defaultValue = "none") String rate,
+            @ShellOption(help = "load profile of level@duration stages, threads per region, e.g. 10@1m,50@2m or 500/s@1m,1000/s@1m (none for fixed load)", defaultValue = "none") String profile,
             @ShellOption(help = "use follower reads", defaultValue = "false") boolean followerReads
     ) {
         final List<Region> matchingRegions = matchingRegions(regions);
@@ -228,18 +464,37 @@ public class BankWorkload extends AbstractWorkload {
 
         final AccountService accountService = getAccountService(method);
 
-        final Duration runtimeDuration = DurationFormat.parseDuration(duration);
+        final LoadProfile loadProfile = LoadProfile.parse(profile);
+
+        final Duration runtimeDuration = loadProfile != null
+                ? loadProfile.getTotalDuration()
+                : DurationFormat.parseDuration(duration);
 
         final LinkedBlockingQueue<Money> accountBalances = new LinkedBlockingQueue<>();
 
+        final Pacer pacer = createPacer(loadProfile, rate);
+
+        final int threadsPerRegion = loadProfile != null && !loadProfile.isRateLevels()
+                ? loadProfile.getMaxWorkers()
+                : threads;
+
+        final int accountLimitNum = Multiplier.parseInt(accountLimit);
+
         matchingRegions
                 .parallelStream()
                 .forEach(region -> {
                     final List<Account> regionAccounts = Collections
-                            .unmodifiableList(accountService.findAccountsByRegion(region.name(), 0, 5000));
+                            .unmodifiableList(accountService.findAccountsByRegion(region.name(), 0, accountLimitNum));
+
+                    if (regionAccounts.isEmpty()) {
+                        console.red("Region %s has no accounts - skipping\n", region);
+                        return;
+                    }
+
+                    final KeyDistribution keyDistribution = KeyDistribution.parse(distribution, regionAccounts.size());
 
                     final Runnable unitOfWork = () -> {
-                        Account account = RandomData.selectRandom(regionAccounts);
+                        Account account = regionAccounts.get(keyDistribution.nextIndex());
                         Money balance;
                         if (followerReads) {
                             balance = accountService.getBalanceSnapshot(account.getId());
@@ -249,12 +504,17 @@ public class BankWorkload extends AbstractWorkload {
                         accountBalances.offer(balance);
                     };
 
-                    IntStream.rangeClosed(1, threads).forEach(value -> {
-                        boundedExecutor.submit(unitOfWork, followerReads
-                                ? "snapshot " : "" + "reader (" + region.name() + ") " + value, runtimeDuration);
+                    IntStream.rangeClosed(1, threadsPerRegion).forEach(value -> {
+                        boundedExecutor.submit(RoutingDataSource.withRoutingKey(region.name(), unitOfWork), followerReads
+                                        ? "snapshot " : "" + "reader (" + region.name() + ") " + value, runtimeDuration, pacer,
+                                loadProfile != null ? loadProfile.gate(value) : null);
                     });
                 });
 
+        if (loadProfile != null) {
+            startLoadProfile(loadProfile, pacer);
+        }
+
         boundedExecutor.submit(() -> {
             try {
                 Money balance = accountBalances.take();
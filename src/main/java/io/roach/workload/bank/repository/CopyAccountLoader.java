@@ -0,0 +1,98 @@
+package io.roach.workload.bank.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.function.LongConsumer;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Repository;
+
+import io.roach.workload.Profiles;
+import io.roach.workload.bank.model.AccountType;
+import io.roach.workload.common.util.CopyTextEncoder;
+import io.roach.workload.common.util.Money;
+
+/**
+ * Bulk account loader streaming generated rows through COPY FROM STDIN. Each call
+ * loads one key range in its own implicit transaction, so ranges can be loaded in
+ * parallel on separate connections.
+ */
+@Repository
+@Profiles.Bank
+public class CopyAccountLoader {
+    private static final String COPY_SQL = "COPY account "
+            + "(id, region, balance, currency, name, description, type, closed, allow_negative, updated) "
+            + "FROM STDIN";
+
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private static final byte[] NAME_PREFIX = CopyTextEncoder.encode("user:");
+
+    private static final byte[] ASSET_TYPE = CopyTextEncoder.encode(AccountType.ASSET.getCode());
+
+    private static final ThreadLocal<CopyTextEncoder> ENCODER
+            = ThreadLocal.withInitial(() -> new CopyTextEncoder(FLUSH_THRESHOLD));
+
+    private DataSource dataSource;
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Load accounts with sequence numbers in range [from, to) for a region.
+     *
+     * @param region the account region
+     * @param initialBalance the initial balance
+     * @param from first sequence number (inclusive)
+     * @param to last sequence number (exclusive)
+     * @param progress callback with number of rows flushed
+     * @return number of rows loaded
+     */
+    public long copyAccounts(String region, Money initialBalance, long from, long to, LongConsumer progress) {
+        final byte[] regionBytes = CopyTextEncoder.encode(region);
+        final byte[] balanceBytes = CopyTextEncoder.encode(initialBalance.getAmount().toPlainString());
+        final byte[] currencyBytes = CopyTextEncoder.encode(initialBalance.getCurrency().getCurrencyCode());
+        final byte[] updatedBytes = CopyTextEncoder.encode(Instant.now().toString());
+
+        final CopyTextEncoder encoder = ENCODER.get();
+        encoder.reset();
+
+        try (Connection connection = dataSource.getConnection()) {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            try {
+                for (long seq = from; seq < to; seq++) {
+                    encoder.appendRandomUUID()
+                            .appendEncoded(regionBytes)
+                            .appendEncoded(balanceBytes)
+                            .appendEncoded(currencyBytes)
+                            .append(NAME_PREFIX, seq)
+                            .appendRandomAlpha(12)
+                            .appendEncoded(ASSET_TYPE)
+                            .append(false)
+                            .append(0)
+                            .appendEncoded(updatedBytes)
+                            .endRow();
+                    if (encoder.isFull()) {
+                        progress.accept(encoder.flushTo(copyIn));
+                    }
+                }
+                progress.accept(encoder.flushTo(copyIn));
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("COPY failed for region " + region, e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package io.roach.workload.bank.service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.roach.workload.Profiles;
+import io.roach.workload.bank.model.Account;
+import io.roach.workload.bank.model.Pair;
+import io.roach.workload.bank.model.Transaction;
+import io.roach.workload.bank.model.TransactionRequest;
+import io.roach.workload.common.aspect.TransactionBoundary;
+import io.roach.workload.common.util.Money;
+
+/**
+ * Transaction service that submits a transfer in a single statement and round trip,
+ * using data-modifying CTEs. The account balance update, the balance constraints and
+ * the ledger inserts are all done in one UPDATE .. FROM .. RETURNING pipeline, rather
+ * than a locking read followed by separate updates and inserts.
+ */
+@Profiles.Bank
+@TransactionBoundary
+public class CteTransactionServiceImpl implements TransactionService {
+    private static final String TRANSFER_SQL = "WITH legs AS ("
+            + "  SELECT * FROM unnest(?::UUID[], ?::STRING[], ?::DECIMAL[], ?::STRING[], ?::STRING[])"
+            + "    AS l(account_id, account_region, amount, currency, note)"
+            + "), updated AS ("
+            + "  UPDATE account a"
+            + "  SET balance = a.balance + legs.amount, updated = clock_timestamp()"
+            + "  FROM legs"
+            + "  WHERE a.id = legs.account_id"
+            + "    AND a.region = legs.account_region"
+            + "    AND a.closed = false"
+            + "    AND a.currency = legs.currency"
+            + "    AND (a.balance + legs.amount) * abs(a.allow_negative - 1) >= 0"
+            + "  RETURNING a.id, a.region, a.balance"
+            + "), tx AS ("
+            + "  INSERT INTO transaction (id, region, booking_date, transfer_date, transaction_type)"
+            + "  VALUES (?, ?, ?, ?, ?)"
+            + "  RETURNING id, region"
+            + ") "
+            + "INSERT INTO transaction_item "
+            + "(transaction_region, transaction_id, account_region, account_id, amount, currency, note, running_balance) "
+            + "SELECT tx.region, tx.id, u.region, u.id, l.amount, l.currency, l.note, u.balance - l.amount "
+            + "FROM updated u "
+            + "JOIN legs l ON u.id = l.account_id AND u.region = l.account_region "
+            + "CROSS JOIN tx "
+            + "RETURNING account_id, account_region, amount, currency, note, running_balance";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CteTransactionServiceImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    @TransactionBoundary
+    public Transaction submitTransaction(TransactionRequest request) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("No transaction context - check Spring profile settings");
+        }
+
+        if (request.getAccountLegs().size() < 2) {
+            throw new BadRequestException("Must have at least two account items");
+        }
+
+        // Coalesce multi-legged transactions and verify they are balanced
+        final Map<Account.Id, Pair<Money, String>> legs = TransactionServiceImpl.coalesce(request);
+
+        final int n = legs.size();
+        final UUID[] ids = new UUID[n];
+        final String[] regions = new String[n];
+        final BigDecimal[] amounts = new BigDecimal[n];
+        final String[] currencies = new String[n];
+        final String[] notes = new String[n];
+
+        int i = 0;
+        for (Map.Entry<Account.Id, Pair<Money, String>> entry : legs.entrySet()) {
+            ids[i] = entry.getKey().getUUID();
+            regions[i] = entry.getKey().getRegion();
+            amounts[i] = entry.getValue().getLeft().getAmount();
+            currencies[i] = entry.getValue().getLeft().getCurrency().getCurrencyCode();
+            notes[i] = entry.getValue().getRight();
+            i++;
+        }
+
+        final Transaction.Id id = Transaction.Id.of(request.getUuid(), request.getRegion());
+
+        final Transaction.Builder transactionBuilder = Transaction.builder()
+                .withId(id)
+                .withTransferType(request.getTransactionType())
+                .withBookingDate(request.getBookingDate())
+                .withTransferDate(request.getTransferDate());
+
+        List<Transaction.Builder> items = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(TRANSFER_SQL);
+            ps.setArray(1, connection.createArrayOf("uuid", ids));
+            ps.setArray(2, connection.createArrayOf("varchar", regions));
+            ps.setArray(3, connection.createArrayOf("numeric", amounts));
+            ps.setArray(4, connection.createArrayOf("varchar", currencies));
+            ps.setArray(5, connection.createArrayOf("varchar", notes));
+            ps.setObject(6, id.getUUID());
+            ps.setString(7, id.getRegion());
+            ps.setObject(8, request.getBookingDate() != null ? request.getBookingDate() : LocalDate.now());
+            ps.setObject(9, request.getTransferDate() != null ? request.getTransferDate() : LocalDate.now());
+            ps.setString(10, request.getTransactionType());
+            return ps;
+        }, (rs, rowNum) -> {
+            Money amount = Money.of(rs.getString("amount"), rs.getString("currency"));
+            Money runningBalance = Money.of(rs.getString("running_balance"), rs.getString("currency"));
+
+            Account account = Account.builder()
+                    .withId((UUID) rs.getObject("account_id"), rs.getString("account_region"))
+                    .withBalance(runningBalance.plus(amount))
+                    .build();
+
+            return transactionBuilder
+                    .andItem()
+                    .withAccount(account)
+                    .withRunningBalance(runningBalance)
+                    .withAmount(amount)
+                    .withNote(rs.getString("note"))
+                    .then();
+        });
+
+        // Legs filtered by the update predicate are either missing, closed or would go negative
+        if (items.size() != n) {
+            throw new IncorrectResultSizeDataAccessException(
+                    "Transfer legs not applied (missing, closed or insufficient funds)", n, items.size());
+        }
+
+        return transactionBuilder.build();
+    }
+}
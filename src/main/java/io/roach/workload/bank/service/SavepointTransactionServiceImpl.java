@@ -0,0 +1,28 @@
+package io.roach.workload.bank.service;
+
+import io.roach.workload.Profiles;
+import io.roach.workload.bank.model.Transaction;
+import io.roach.workload.bank.model.TransactionRequest;
+import io.roach.workload.bank.repository.AccountRepository;
+import io.roach.workload.bank.repository.TransactionRepository;
+import io.roach.workload.common.aspect.TransactionBoundary;
+
+/**
+ * Transaction service with the same logic as {@link TransactionServiceImpl}, but retrying
+ * transient errors within the same transaction using the 'cockroach_restart' savepoint
+ * protocol rather than starting over in a new transaction.
+ */
+@Profiles.Bank
+@TransactionBoundary(retryStrategy = TransactionBoundary.RetryStrategy.savepoint)
+public class SavepointTransactionServiceImpl extends TransactionServiceImpl {
+    public SavepointTransactionServiceImpl(AccountRepository accountRepository,
+                                           TransactionRepository transactionRepository) {
+        super(accountRepository, transactionRepository);
+    }
+
+    @Override
+    @TransactionBoundary(retryStrategy = TransactionBoundary.RetryStrategy.savepoint)
+    public Transaction submitTransaction(TransactionRequest request) {
+        return super.submitTransaction(request);
+    }
+}
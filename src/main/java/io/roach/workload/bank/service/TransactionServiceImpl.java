@@ -79,7 +79,7 @@ public class TransactionServiceImpl implements TransactionService {
         return transactionRepository.create(transactionBuilder.build());
     }
 
-    private Map<Account.Id, Pair<Money, String>> coalesce(TransactionRequest request) {
+    static Map<Account.Id, Pair<Money, String>> coalesce(TransactionRequest request) {
         final Map<Account.Id, Pair<Money, String>> legs = new HashMap<>();
         final Map<Currency, BigDecimal> amounts = new HashMap<>();
 
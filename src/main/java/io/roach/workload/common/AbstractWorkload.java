@@ -1,13 +1,26 @@
 package io.roach.workload.common;
 
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
 import io.roach.workload.common.cli.Console;
+import io.roach.workload.common.jpa.PgJdbcTemplate;
 import io.roach.workload.common.util.BoundedExecutor;
+import io.roach.workload.common.util.CallMetric;
+import io.roach.workload.common.util.LoadProfile;
+import io.roach.workload.common.util.Pacer;
 
 public abstract class AbstractWorkload implements Workload {
+    private static final long OFFER_TIMEOUT_MILLIS = 500;
+
     @Autowired
     protected Console console;
 
@@ -16,4 +29,110 @@ public abstract class AbstractWorkload implements Workload {
 
     @Autowired
     protected BoundedExecutor boundedExecutor;
+
+    @Autowired
+    protected ScheduledExecutorService scheduledExecutorService;
+
+    @Autowired
+    protected PgJdbcTemplate jdbcTemplate;
+
+    /**
+     * Set the number of executions before statements issued through the shared
+     * JdbcTemplate are server-side prepared.
+     *
+     * @param prepareThreshold threshold, 0 to disable or 'default' for the connection default
+     */
+    protected void applyPrepareThreshold(String prepareThreshold) {
+        jdbcTemplate.setPrepareThreshold("default".equalsIgnoreCase(prepareThreshold)
+                ? null
+                : Integer.parseInt(prepareThreshold));
+    }
+
+    /**
+     * Offer an item to a bounded queue, waiting for space until the deadline passes or the
+     * executor shuts down. Used by generators so they don't block forever, holding on to
+     * their worker, once the consumers have stopped taking.
+     *
+     * @param queue the queue
+     * @param item the item to add
+     * @param deadlineMillis the deadline in epoch millis
+     * @return true if added or false if the deadline passed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    protected <E> boolean offerUntil(BlockingQueue<E> queue, E item, long deadlineMillis)
+            throws InterruptedException {
+        while (!queue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (System.currentTimeMillis() >= deadlineMillis || boundedExecutor.isShutdown()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create the pacer for a run, which for a rate profile starts at the first stage rate.
+     *
+     * @param profile the load profile or null
+     * @param rate the fixed target rate expression
+     * @return the pacer or null for closed-loop
+     */
+    protected Pacer createPacer(LoadProfile profile, String rate) {
+        if (profile != null && profile.isRateLevels()) {
+            return new Pacer(profile.currentStage().getLevel());
+        }
+        return Pacer.parse(rate);
+    }
+
+    /**
+     * Step through the stages of a load profile in the background, adjusting the pacer
+     * rate for rate levels and recording per stage results. Worker levels are applied
+     * through {@link LoadProfile#gate(int)}. The stage results are printed when done.
+     *
+     * @param profile the load profile
+     * @param pacer the pacer to adjust for rate levels or null
+     */
+    protected void startLoadProfile(LoadProfile profile, Pacer pacer) {
+        final CallMetric callMetric = boundedExecutor.getCallMetric();
+        final AtomicLong stageEndTime = new AtomicLong();
+        final AtomicReference<ScheduledFuture<?>> future = new AtomicReference<>();
+
+        final Runnable beginStage = () -> {
+            LoadProfile.Stage stage = profile.currentStage();
+            if (pacer != null && profile.isRateLevels()) {
+                pacer.setRate(stage.getLevel());
+            }
+            callMetric.beginStage(stage.getOrdinal(), stage.getLabel(), stage.getLevel());
+            stageEndTime.set(System.nanoTime() + stage.getDuration().toNanos());
+            console.magenta("Entering stage %d of %d: %s for %s\n",
+                    stage.getOrdinal(), profile.getStages().size(), stage.getLabel(), stage.getDuration());
+        };
+
+        beginStage.run();
+
+        future.set(scheduledExecutorService.scheduleAtFixedRate(() -> {
+            boolean cancelled = !boundedExecutor.hasActiveWorkers();
+            if (!cancelled && System.nanoTime() < stageEndTime.get()) {
+                return;
+            }
+            if (!cancelled && profile.advance()) {
+                beginStage.run();
+                return;
+            }
+
+            callMetric.endStage();
+            future.get().cancel(false);
+
+            console.magenta("Load profile results:\n");
+            callMetric.prettyPrintStages(s -> console.yellow("%s\n", s));
+
+            CallMetric.StageResult knee = callMetric.findKnee();
+            if (knee != null) {
+                console.green("Throughput knee at stage %d (%s): %.1f op/s p99 %.2f ms\n",
+                        knee.getOrdinal(), knee.getLabel(), knee.opsPerSec(),
+                        knee.getSnapshot().valueAtPercentile(.99));
+            } else {
+                console.green("No throughput knee found - throughput scaled with load in all stages\n");
+            }
+        }, 1, 1, TimeUnit.SECONDS));
+    }
 }
@@ -0,0 +1,13 @@
+package io.roach.workload.common.aspect;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+/**
+ * Thrown when a transaction boundary call is shed without reaching the database, since the
+ * cluster-wide transient error retry ratio is above the circuit breaker threshold.
+ */
+public class CircuitOpenException extends TransientDataAccessResourceException {
+    public CircuitOpenException(String msg) {
+        super(msg);
+    }
+}
@@ -20,11 +20,32 @@ import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 
+import io.roach.workload.common.util.RetryBudget;
+import io.roach.workload.common.util.RetryMetric;
+
 @Aspect
 @Order(Ordered.LOWEST_PRECEDENCE - 20) // This advisor must be before the TX advisor in the call chain
 public class RetryableAspect {
+    private static final long BASE_BACKOFF_MILLIS = 25;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    private final RetryMetric retryMetric = new RetryMetric();
+
+    private final RetryBudget retryBudget;
+
+    public RetryableAspect(RetryBudget retryBudget) {
+        this.retryBudget = retryBudget;
+    }
+
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    public RetryMetric getRetryMetric() {
+        return retryMetric;
+    }
+
     @Around(value = "Pointcuts.anyTransactionBoundaryOperation(transactionBoundary)",
             argNames = "pjp,transactionBoundary")
     public Object doInTransaction(ProceedingJoinPoint pjp, TransactionBoundary transactionBoundary)
@@ -37,8 +58,26 @@ public class RetryableAspect {
                     .findAnnotation(pjp.getSignature().getDeclaringType(), TransactionBoundary.class);
         }
 
+        if (!retryBudget.tryCall()) {
+            // Hold the caller for the rest of the open period, or closed-loop workers spin on shed calls
+            long waitMillis = retryBudget.getOpenMillisRemaining();
+            if (waitMillis > 0) {
+                try {
+                    Thread.sleep(waitMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            throw new CircuitOpenException("Transient error retry ratio above threshold - call to ["
+                    + pjp.getSignature().toShortString() + "] shed (" + retryBudget + ")");
+        }
+
+        final RetryMetric.Context retryContext = retryMetric.add(pjp.getSignature().toShortString());
+
         int numCalls = 0;
 
+        long backoffMillis = BASE_BACKOFF_MILLIS;
+
         final Instant callTime = Instant.now();
 
         do {
@@ -52,6 +91,9 @@ public class RetryableAspect {
                                     + transactionBoundary.retryAttempts() + " retries ("
                                     + Duration.between(callTime, Instant.now()).toString() + ")");
                 }
+                retryContext.recordOutcome(numCalls,
+                        numCalls > 1 ? RetryMetric.Outcome.recovered : RetryMetric.Outcome.success);
+                retryBudget.onSuccess();
                 return rv;
             } catch (DataAccessException | TransactionException ex) {
                 t = ex;
@@ -61,6 +103,15 @@ public class RetryableAspect {
                     ut = ((UndeclaredThrowableException) ut).getUndeclaredThrowable();
                 }
                 t = ut;
+            } catch (RuntimeException | Error ex) {
+                retryContext.recordOutcome(numCalls, RetryMetric.Outcome.failed);
+                throw ex;
+            }
+
+            // Savepoint boundaries are retried within the transaction, which has already given up
+            if (TransactionBoundary.RetryStrategy.savepoint.equals(transactionBoundary.retryStrategy())) {
+                retryContext.recordOutcome(numCalls, RetryMetric.Outcome.failed);
+                throw t;
             }
 
             Throwable cause = NestedExceptionUtils.getMostSpecificCause(t);
@@ -69,8 +120,17 @@ public class RetryableAspect {
                 // 08006 - tx timeout?
                 // 57014 - stmt timeout?
                 if ("40001".equals(sqlException.getSQLState())) { // Transient error code
+                    if (!retryBudget.tryRetry()) {
+                        retryContext.recordOutcome(numCalls, RetryMetric.Outcome.exhausted);
+                        throw new ConcurrencyFailureException("Retry budget exhausted after " + numCalls
+                                + " calls to method [" + pjp.getSignature().toShortString() + "] ("
+                                + retryBudget + ")", t);
+                    }
+                    backoffMillis = RetryBudget.decorrelatedJitter(BASE_BACKOFF_MILLIS,
+                            transactionBoundary.maxBackoff(), backoffMillis);
                     handleTransientException(sqlException, numCalls, pjp.getSignature().toShortString(),
-                            transactionBoundary.maxBackoff());
+                            backoffMillis);
+                    retryContext.recordBackoff(backoffMillis);
                     continue;
                 }
 
@@ -84,16 +144,18 @@ public class RetryableAspect {
                     next = sqlException.getNextException();
                 }
             }
+            retryContext.recordOutcome(numCalls, RetryMetric.Outcome.failed);
             throw t; // Propagate up the stack
         } while (numCalls < transactionBoundary.retryAttempts());
 
+        retryContext.recordOutcome(numCalls, RetryMetric.Outcome.exhausted);
+
         throw new ConcurrencyFailureException("Too many transient errors (" + numCalls + ") for method ["
                 + pjp.getSignature().toShortString() + "]. Giving up!");
     }
 
-    private void handleTransientException(SQLException ex, int numCalls, String method, long maxBackoff) {
+    private void handleTransientException(SQLException ex, int numCalls, String method, long backoffMillis) {
         try {
-            long backoffMillis = Math.min((long) (Math.pow(2, numCalls) + Math.random() * 1000), maxBackoff);
             if (numCalls <= 1 && logger.isWarnEnabled()) {
                 logger.warn("Transient error (backoff {}ms) in call {} to '{}': {}",
                         backoffMillis, numCalls, method, ex.getMessage());
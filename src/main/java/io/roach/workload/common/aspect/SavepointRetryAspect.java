@@ -0,0 +1,139 @@
+package io.roach.workload.common.aspect;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.sql.SQLException;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import io.roach.workload.common.util.RetryBudget;
+import io.roach.workload.common.util.RetryMetric;
+
+/**
+ * Client-side retry advice for transaction boundaries using the
+ * {@link TransactionBoundary.RetryStrategy#savepoint savepoint} retry strategy. Runs
+ * right after the transaction advisor and wraps the method in a 'cockroach_restart'
+ * savepoint, which must be the first statement in the transaction, so the session hints
+ * are applied within the retried block. On a transient error, it rolls back to the
+ * savepoint and re-runs the method in the same transaction, which keeps its priority and
+ * timestamp rather than re-acquiring a connection and starting over.
+ */
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE - 5) // This advisor must be after the TX advisor and before the session hints advisor
+public class SavepointRetryAspect {
+    private static final String SAVEPOINT_NAME = "cockroach_restart";
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final RetryMetric retryMetric;
+
+    private final RetryBudget retryBudget;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public SavepointRetryAspect(RetryMetric retryMetric, RetryBudget retryBudget) {
+        this.retryMetric = retryMetric;
+        this.retryBudget = retryBudget;
+    }
+
+    @Around(value = "Pointcuts.anyTransactionBoundaryOperation(transactionBoundary)",
+            argNames = "pjp,transactionBoundary")
+    public Object doInSavepoint(ProceedingJoinPoint pjp, TransactionBoundary transactionBoundary)
+            throws Throwable {
+        // Grab from type if needed (for non-annotated methods)
+        if (transactionBoundary == null) {
+            transactionBoundary = AnnotationUtils
+                    .findAnnotation(pjp.getSignature().getDeclaringType(), TransactionBoundary.class);
+        }
+
+        if (!TransactionBoundary.RetryStrategy.savepoint.equals(transactionBoundary.retryStrategy())) {
+            return pjp.proceed();
+        }
+
+        Assert.isTrue(TransactionSynchronizationManager.isActualTransactionActive(), "TX not active");
+
+        final String method = pjp.getSignature().toShortString();
+        final RetryMetric.Context retryContext = retryMetric.add(method + " [savepoint]");
+
+        jdbcTemplate.execute("SAVEPOINT " + SAVEPOINT_NAME);
+
+        int numCalls = 0;
+
+        Throwable lastError = null;
+
+        do {
+            Throwable t;
+            try {
+                numCalls++;
+                Object rv = pjp.proceed();
+                // Commits the transaction in CockroachDB and may fail with a transient error
+                jdbcTemplate.execute("RELEASE SAVEPOINT " + SAVEPOINT_NAME);
+                retryContext.recordOutcome(numCalls,
+                        numCalls > 1 ? RetryMetric.Outcome.recovered : RetryMetric.Outcome.success);
+                return rv;
+            } catch (DataAccessException | TransactionException ex) {
+                t = ex;
+            } catch (UndeclaredThrowableException ex) {
+                Throwable ut = ex.getUndeclaredThrowable();
+                while (ut instanceof UndeclaredThrowableException) {
+                    ut = ((UndeclaredThrowableException) ut).getUndeclaredThrowable();
+                }
+                t = ut;
+            } catch (RuntimeException | Error ex) {
+                retryContext.recordOutcome(numCalls, RetryMetric.Outcome.failed);
+                throw ex;
+            }
+
+            Throwable cause = NestedExceptionUtils.getMostSpecificCause(t);
+            if (cause instanceof SQLException && "40001".equals(((SQLException) cause).getSQLState())) {
+                if (!retryBudget.tryRetry()) {
+                    retryContext.recordOutcome(numCalls, RetryMetric.Outcome.exhausted);
+                    throw new ConcurrencyFailureException("Retry budget exhausted after " + numCalls
+                            + " calls to method [" + method + "] using savepoint retries (" + retryBudget + ")", t);
+                }
+                lastError = t;
+                jdbcTemplate.execute("ROLLBACK TO SAVEPOINT " + SAVEPOINT_NAME);
+                retryContext.recordBackoff(backoff(numCalls, method, cause, transactionBoundary.maxBackoff()));
+                continue;
+            }
+
+            retryContext.recordOutcome(numCalls, RetryMetric.Outcome.failed);
+            throw t; // Propagate up the stack
+        } while (numCalls < transactionBoundary.retryAttempts());
+
+        retryContext.recordOutcome(numCalls, RetryMetric.Outcome.exhausted);
+
+        throw new ConcurrencyFailureException("Too many transient errors (" + numCalls + ") for method ["
+                + method + "] using savepoint retries. Giving up!", lastError);
+    }
+
+    // Shorter jitter than when repeating since the transaction keeps its locks while sleeping
+    private long backoff(int numCalls, String method, Throwable cause, long maxBackoff) {
+        long backoffMillis = Math.min((long) (Math.pow(2, numCalls) + Math.random() * 50), maxBackoff);
+        if (numCalls <= 1 && logger.isWarnEnabled()) {
+            logger.warn("Transient error (savepoint backoff {}ms) in call {} to '{}': {}",
+                    backoffMillis, numCalls, method, cause.getMessage());
+        }
+        try {
+            Thread.sleep(backoffMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return backoffMillis;
+    }
+}
@@ -1,10 +1,21 @@
 package io.roach.workload.common.aspect;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.postgresql.PGConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +23,8 @@ import org.springframework.core.Ordered;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.annotation.Order;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 
@@ -20,6 +33,12 @@ import org.springframework.util.Assert;
 public class SessionHintsAspect {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
+    private final Map<Object, SessionState> sessionStates = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final LongAdder statementsExecuted = new LongAdder();
+
+    private final LongAdder statementsSaved = new LongAdder();
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -47,35 +66,113 @@ public class SessionHintsAspect {
         return pjp.proceed();
     }
 
+    /**
+     * @return number of hint statements sent to the database
+     */
+    public long getStatementsExecuted() {
+        return statementsExecuted.sum();
+    }
+
+    /**
+     * @return number of hint statements skipped since already in effect or combined
+     */
+    public long getStatementsSaved() {
+        return statementsSaved.sum();
+    }
+
     private void applyVariables(TransactionBoundary transactionBoundary) {
-        if (!"".equals(transactionBoundary.transactionTimeout())) {
-            jdbcTemplate.update("SET idle_in_transaction_session_timeout=?",
-                    transactionBoundary.transactionTimeout());
-            jdbcTemplate.update("SET statement_timeout=?",
-                    transactionBoundary.transactionTimeout());
-        } else {
-            if (!"".equals(transactionBoundary.statementTimeout())) {
-                jdbcTemplate.update("SET statement_timeout=?",
-                        transactionBoundary.statementTimeout());
+        final boolean combinedTimeout = !"".equals(transactionBoundary.transactionTimeout());
+        final String statementTimeout = combinedTimeout
+                ? transactionBoundary.transactionTimeout()
+                : transactionBoundary.statementTimeout();
+        final String idleTimeout = combinedTimeout
+                ? transactionBoundary.transactionTimeout()
+                : transactionBoundary.idleInTransactionSessionTimeout();
+
+        if (!"".equals(statementTimeout) || !"".equals(idleTimeout)) {
+            final Object sessionKey = currentSessionKey();
+            final SessionState state = sessionStates.computeIfAbsent(sessionKey, k -> new SessionState());
+
+            boolean changed = false;
+
+            if (!"".equals(idleTimeout)) {
+                if (idleTimeout.equals(state.idleInTransactionSessionTimeout)) {
+                    statementsSaved.increment();
+                } else {
+                    jdbcTemplate.update("SET idle_in_transaction_session_timeout=?", idleTimeout);
+                    state.idleInTransactionSessionTimeout = idleTimeout;
+                    statementsExecuted.increment();
+                    changed = true;
+                }
+            }
+
+            if (!"".equals(statementTimeout)) {
+                if (statementTimeout.equals(state.statementTimeout)) {
+                    statementsSaved.increment();
+                } else {
+                    jdbcTemplate.update("SET statement_timeout=?", statementTimeout);
+                    state.statementTimeout = statementTimeout;
+                    statementsExecuted.increment();
+                    changed = true;
+                }
             }
 
-            if (!"".equals(transactionBoundary.idleInTransactionSessionTimeout())) {
-                jdbcTemplate.update("SET idle_in_transaction_session_timeout=?",
-                        transactionBoundary.idleInTransactionSessionTimeout());
+            if (changed) {
+                // Session state is unknown if the transaction doesn't commit
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED) {
+                            sessionStates.remove(sessionKey);
+                        }
+                    }
+                });
             }
         }
 
+        // Transaction scoped hints are combined into one statement
+        final List<String> transactionModes = new ArrayList<>(3);
+
         if (!TransactionBoundary.Priority.normal.equals(transactionBoundary.priority())) {
-            jdbcTemplate.execute("SET TRANSACTION PRIORITY " + transactionBoundary.priority().name());
+            transactionModes.add("PRIORITY " + transactionBoundary.priority().name());
         }
 
         if (transactionBoundary.readOnly()) {
-            jdbcTemplate.execute("SET transaction_read_only=true");
+            transactionModes.add("READ ONLY");
         }
 
         if (transactionBoundary.followerRead()) {
-            jdbcTemplate.execute("SET TRANSACTION AS OF SYSTEM TIME follower_read_timestamp()");
+            transactionModes.add("AS OF SYSTEM TIME follower_read_timestamp()");
+        }
+
+        if (!transactionModes.isEmpty()) {
+            jdbcTemplate.execute("SET TRANSACTION " + String.join(", ", transactionModes));
+            statementsExecuted.increment();
+            statementsSaved.add(transactionModes.size() - 1);
         }
     }
-}
 
+    /**
+     * Resolve the physical connection bound to the current transaction, which outlives the
+     * pool and proxy wrappers handed out per checkout.
+     */
+    private Object currentSessionKey() {
+        DataSource dataSource = Objects.requireNonNull(jdbcTemplate.getDataSource());
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return connection.isWrapperFor(PGConnection.class)
+                    ? connection.unwrap(PGConnection.class)
+                    : connection;
+        } catch (SQLException e) {
+            return connection;
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static class SessionState {
+        String statementTimeout;
+
+        String idleInTransactionSessionTimeout;
+    }
+}
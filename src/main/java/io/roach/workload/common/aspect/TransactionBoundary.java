@@ -72,9 +72,27 @@ public @interface TransactionBoundary {
      */
     Priority priority() default Priority.normal;
 
+    /**
+     * @return how aborted transient data access exceptions are retried
+     */
+    RetryStrategy retryStrategy() default RetryStrategy.repeat;
+
     enum Priority {
         normal,
         low,
         high
     }
+
+    enum RetryStrategy {
+        /**
+         * Re-run the method in a new transaction
+         */
+        repeat,
+        /**
+         * Roll back to a 'cockroach_restart' savepoint and re-run the method in the same
+         * transaction, retaining its priority and timestamp. Only suitable for methods that
+         * don't keep state outside the database, such as a JPA persistence context.
+         */
+        savepoint
+    }
 }
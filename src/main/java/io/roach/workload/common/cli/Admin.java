@@ -8,6 +8,7 @@ import java.io.UncheckedIOException;
 import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.io.Resource;
 import org.springframework.shell.Availability;
@@ -15,12 +16,14 @@ import org.springframework.shell.ExitRequest;
 import org.springframework.shell.standard.ShellCommandGroup;
 import org.springframework.shell.standard.ShellComponent;
 import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
 import org.springframework.shell.standard.commands.Quit;
 import org.springframework.util.FileCopyUtils;
 
 import com.zaxxer.hikari.HikariDataSource;
 
 import io.roach.workload.common.util.BoundedExecutor;
+import io.roach.workload.common.util.FastRandom;
 import io.roach.workload.common.util.RandomData;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -40,6 +43,9 @@ public class Admin implements Quit.Command {
     @Autowired
     private Console console;
 
+    @Value("${roach.random-seed:0}")
+    private long randomSeed;
+
     public Availability dataSourceCheck() {
         return hikariDataSource.getHikariPoolMXBean() != null
                 ? Availability.available()
@@ -61,6 +67,15 @@ public class Admin implements Quit.Command {
     @PostConstruct
     public void init() {
         RandomData.randomCurrency();
+        if (randomSeed != 0) {
+            FastRandom.setSeed(randomSeed);
+        }
+    }
+
+    @ShellMethod(value = "Seed the root of the per-thread random data generators", key = {"random-seed"})
+    public void randomSeed(@ShellOption(help = "root seed") long seed) {
+        FastRandom.setSeed(seed);
+        console.green("Random seed set to %d\n", seed);
     }
 
     @ShellMethod(value = "Exit the shell", key = {"q", "quit", "exit"})
@@ -4,8 +4,12 @@ import com.zaxxer.hikari.HikariPoolMXBean;
 
 public class ConnectionPoolStats {
     public static ConnectionPoolStats from(HikariPoolMXBean mxBean) {
+        return from(mxBean.toString(), mxBean);
+    }
+
+    public static ConnectionPoolStats from(String name, HikariPoolMXBean mxBean) {
         ConnectionPoolStats ps = new ConnectionPoolStats();
-        ps.name = mxBean.toString();
+        ps.name = name;
         ps.activeConnections = mxBean.getActiveConnections();
         ps.idleConnections = mxBean.getIdleConnections();
         ps.threadsAwaitingConnection = mxBean.getThreadsAwaitingConnection();
@@ -13,6 +17,18 @@ public class ConnectionPoolStats {
         return ps;
     }
 
+    public static ConnectionPoolStats sum(String name, Iterable<ConnectionPoolStats> stats) {
+        ConnectionPoolStats ps = new ConnectionPoolStats();
+        ps.name = name;
+        stats.forEach(s -> {
+            ps.activeConnections += s.activeConnections;
+            ps.idleConnections += s.idleConnections;
+            ps.threadsAwaitingConnection += s.threadsAwaitingConnection;
+            ps.totalConnections += s.totalConnections;
+        });
+        return ps;
+    }
+
     public String name;
 
     public int activeConnections;
@@ -1,18 +1,26 @@
 package io.roach.workload.common.cli;
 
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.OperatingSystemMXBean;
 import java.lang.management.RuntimeMXBean;
 import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.DoubleSummaryStatistics;
 import java.util.IntSummaryStatistics;
+import java.util.List;
 import java.util.LongSummaryStatistics;
+import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -22,10 +30,14 @@ import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.hibernate.engine.jdbc.connections.internal.ConnectionProviderInitiator;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.shell.standard.ShellCommandGroup;
 import org.springframework.shell.standard.ShellComponent;
@@ -36,9 +48,18 @@ import org.springframework.util.ReflectionUtils;
 
 import com.zaxxer.hikari.HikariDataSource;
 
+import io.roach.workload.common.aspect.RetryableAspect;
+import io.roach.workload.common.aspect.SessionHintsAspect;
 import io.roach.workload.common.jpa.DataSourceHelper;
+import io.roach.workload.common.jpa.RoutingDataSource;
+import io.roach.workload.common.jpa.SwitchableDataSource;
 import io.roach.workload.common.util.BoundedExecutor;
 import io.roach.workload.common.util.CallMetric;
+import io.roach.workload.common.util.CsvMetricsSink;
+import io.roach.workload.common.util.JsonLinesMetricsSink;
+import io.roach.workload.common.util.MetricsSink;
+import io.roach.workload.common.util.RetryBudget;
+import io.roach.workload.common.util.RetryMetric;
 
 import static io.roach.workload.common.config.DataSourceConfig.SQL_TRACE_LOGGER;
 
@@ -56,6 +77,8 @@ public class Metrics {
     private static final ConcurrentLinkedDeque<Double> aggregatedLoadAvg
             = new ConcurrentLinkedDeque<>();
 
+    private final CopyOnWriteArrayList<MetricsSink> metricsSinks = new CopyOnWriteArrayList<>();
+
     private boolean printMetrics = true;
 
     @Autowired
@@ -70,6 +93,26 @@ public class Metrics {
     @Autowired
     private BoundedExecutor boundedExecutor;
 
+    @Autowired(required = false)
+    private RoutingDataSource routingDataSource;
+
+    @Autowired
+    private SwitchableDataSource switchableDataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${roach.application-name:}")
+    private String appName;
+
+    private volatile List<ConnectionPoolStats> routedPoolStats = Collections.emptyList();
+
+    @Autowired(required = false)
+    private SessionHintsAspect sessionHintsAspect;
+
+    @Autowired(required = false)
+    private RetryableAspect retryableAspect;
+
     @ShellMethod(value = "Toggle console metrics", key = {"metrics", "m"})
     public void toggleMetrics() {
         printMetrics = !printMetrics;
@@ -83,10 +126,12 @@ public class Metrics {
         ch.qos.logback.classic.Logger logger = loggerContext.getLogger(SQL_TRACE_LOGGER);
         if (logger.getLevel().isGreaterOrEqual(ch.qos.logback.classic.Level.DEBUG)) {
             logger.setLevel(ch.qos.logback.classic.Level.TRACE);
+            switchableDataSource.setTracing(true);
             console.green("SQL trace logging enabled to 'workload.log'\n");
             logger.trace("Enabled");
         } else {
             logger.setLevel(ch.qos.logback.classic.Level.DEBUG);
+            switchableDataSource.setTracing(false);
             logger.debug("Disabled");
             console.green("SQL trace logging disabled\n");
         }
@@ -96,16 +141,77 @@ public class Metrics {
     public void init() {
         scheduledExecutorService.scheduleAtFixedRate(poolMetricsSampler(), 5, 1, TimeUnit.SECONDS);
         scheduledExecutorService.scheduleAtFixedRate(poolMetricsPrinter(), 10, 30, TimeUnit.SECONDS);
-        scheduledExecutorService.scheduleAtFixedRate(callMetricsPrinter(), 5, 3, TimeUnit.SECONDS);
+        scheduledExecutorService.scheduleAtFixedRate(callMetricsSampler(), 5, 3, TimeUnit.SECONDS);
     }
 
-    private Runnable callMetricsPrinter() {
+    @PreDestroy
+    public void destroy() {
+        metricsSinks.forEach(MetricsSink::close);
+        metricsSinks.clear();
+    }
+
+    @ShellMethod(value = "Start exporting call metrics per interval to file", key = {"export-start", "es"})
+    public void exportStart(
+            @ShellOption(help = "output file", defaultValue = "metrics.csv") String file,
+            @ShellOption(help = "file format (csv|json)", defaultValue = "csv") String format) {
+        Path path = Paths.get(file);
+        try {
+            MetricsSink sink;
+            if ("csv".equalsIgnoreCase(format)) {
+                sink = new CsvMetricsSink(path);
+            } else if ("json".equalsIgnoreCase(format)) {
+                sink = new JsonLinesMetricsSink(path);
+            } else {
+                console.red("Unknown format (csv|json): %s\n", format);
+                return;
+            }
+            metricsSinks.add(sink);
+            console.green("Exporting call metrics to '%s' (%s)\n", path.toAbsolutePath(), format);
+        } catch (IOException e) {
+            console.red("Unable to open '%s': %s\n", path, e);
+        }
+    }
+
+    @ShellMethod(value = "Stop exporting call metrics", key = {"export-stop", "ex"})
+    public void exportStop() {
+        if (metricsSinks.isEmpty()) {
+            console.yellow("No active exports\n");
+            return;
+        }
+        metricsSinks.forEach(sink -> {
+            sink.close();
+            metricsSinks.remove(sink);
+            console.green("Closed %s\n", sink);
+        });
+    }
+
+    private Runnable callMetricsSampler() {
         return () -> {
-            if (printMetrics && boundedExecutor.hasActiveWorkers()) {
+            if (!boundedExecutor.hasActiveWorkers()) {
+                return;
+            }
+
+            CallMetric callMetric = boundedExecutor.getCallMetric();
+            callMetric.sample();
+
+            final RetryMetric retryMetric = retryableAspect != null ? retryableAspect.getRetryMetric() : null;
+            if (retryMetric != null) {
+                retryMetric.sample();
+            }
+
+            if (!metricsSinks.isEmpty()) {
+                List<CallMetric.Interval> intervals = callMetric.getIntervals();
+                metricsSinks.forEach(sink -> sink.accept(intervals));
+                if (retryMetric != null) {
+                    List<RetryMetric.Interval> retryIntervals = retryMetric.getIntervals();
+                    metricsSinks.forEach(sink -> sink.acceptRetries(retryIntervals));
+                }
+            }
+
+            if (printMetrics) {
                 try {
                     mutex.acquire();
 
-                    CallMetric callMetric = boundedExecutor.getCallMetric();
                     console.magenta("%s\n", callMetric.prettyPrintHeader());
                     AtomicBoolean toggle = new AtomicBoolean();
                     callMetric.prettyPrintBody(s -> {
@@ -116,6 +222,11 @@ public class Metrics {
                         }
                     });
                     console.green("%s\n", callMetric.prettyPrintFooter());
+
+                    if (retryMetric != null && !retryMetric.isEmpty()) {
+                        console.magenta("%s\n", retryMetric.prettyPrintHeader());
+                        retryMetric.prettyPrintBody(s -> console.yellow("%s\n", s));
+                    }
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                 } finally {
@@ -127,7 +238,15 @@ public class Metrics {
 
     private Runnable poolMetricsSampler() {
         return () -> {
-            aggregatedConnectionPoolStats.add(ConnectionPoolStats.from(hikariDataSource.getHikariPoolMXBean()));
+            if (routingDataSource != null) {
+                List<ConnectionPoolStats> stats = new ArrayList<>();
+                routingDataSource.getPools().forEach((key, pool) ->
+                        stats.add(ConnectionPoolStats.from(key, pool.getHikariPoolMXBean())));
+                routedPoolStats = stats;
+                aggregatedConnectionPoolStats.add(ConnectionPoolStats.sum("routed", stats));
+            } else {
+                aggregatedConnectionPoolStats.add(ConnectionPoolStats.from(hikariDataSource.getHikariPoolMXBean()));
+            }
             aggregatedThreadPoolStats.add(ThreadPoolStats.from(boundedExecutor));
 
             OperatingSystemMXBean mxBean = ManagementFactory.getOperatingSystemMXBean();
@@ -161,11 +280,17 @@ public class Metrics {
                     printSummaryStats("total",
                             poolStats.totalConnections,
                             aggregatedConnectionPoolStats.stream().mapToInt(value -> value.totalConnections));
+                    routedPoolStats.forEach(ps -> {
+                        console.yellow("%20s:", ps.name);
+                        console.green(" active %d, idle %d, waiting %d, total %d\n",
+                                ps.activeConnections, ps.idleConnections,
+                                ps.threadsAwaitingConnection, ps.totalConnections);
+                    });
                 }
 
                 ThreadPoolStats threadPoolStats = aggregatedThreadPoolStats.peekLast();
                 if (threadPoolStats != null) {
-                    console.magenta("Thread Pool:\n");
+                    console.magenta("Thread Pool (%s):\n", threadPoolStats.virtualThreads ? "virtual" : "platform");
                     printSummaryStats("poolSize",
                             threadPoolStats.poolSize,
                             aggregatedThreadPoolStats.stream().mapToInt(value -> value.poolSize));
@@ -181,6 +306,32 @@ public class Metrics {
                     printSummaryStats("completedTaskCount",
                             threadPoolStats.completedTaskCount,
                             aggregatedThreadPoolStats.stream().mapToLong(value -> value.completedTaskCount));
+                    printSummaryStats("availablePermits",
+                            threadPoolStats.availablePermits,
+                            aggregatedThreadPoolStats.stream().mapToInt(value -> value.availablePermits));
+                }
+
+                if (retryableAspect != null) {
+                    RetryBudget retryBudget = retryableAspect.getRetryBudget();
+                    console.magenta("Retry Budget (%s):\n", retryBudget.getState());
+                    console.yellow("%20s:", "tokens");
+                    console.green(" %.1f of %.0f, retry ratio %.2f\n",
+                            retryBudget.getAvailableTokens(), retryBudget.getCapacity(),
+                            retryBudget.getLastRetryRatio());
+                    console.yellow("%20s:", "retries");
+                    console.green(" granted %,d, denied %,d\n",
+                            retryBudget.getRetriesGranted(), retryBudget.getRetriesDenied());
+                    console.yellow("%20s:", "circuit");
+                    console.green(" opened %,d, calls shed %,d\n",
+                            retryBudget.getCircuitOpened(), retryBudget.getCallsShed());
+                }
+
+                if (sessionHintsAspect != null) {
+                    console.magenta("Session Hints:\n");
+                    console.yellow("%20s:", "statements");
+                    console.green(" executed %,d, saved %,d\n",
+                            sessionHintsAspect.getStatementsExecuted(),
+                            sessionHintsAspect.getStatementsSaved());
                 }
 
                 if (!aggregatedLoadAvg.isEmpty()) {
@@ -320,4 +471,59 @@ public class Metrics {
             console.red(ex.toString());
         }
     }
+
+    @ShellMethod(value = "Print statement statistics of the gateway node, such as parse and plan time", key = {"statement-stats", "ss"})
+    @ShellMethodAvailability("dataSourceCheck")
+    public void statementStats(
+            @ShellOption(help = "max number of statements", defaultValue = "20") int limit,
+            @ShellOption(help = "reset statistics after printing (to compare runs)", defaultValue = "false") boolean reset) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT key, sum(count) AS count, "
+                        + "sum(parse_lat_avg * count) AS parse_sum, "
+                        + "sum(plan_lat_avg * count) AS plan_sum, "
+                        + "sum(run_lat_avg * count) AS run_sum, "
+                        + "sum(service_lat_avg * count) AS service_sum "
+                        + "FROM crdb_internal.node_statement_statistics "
+                        + "WHERE application_name = ? "
+                        + "GROUP BY key ORDER BY count DESC LIMIT ?",
+                appName != null ? appName : "", limit);
+
+        console.magenta("%-60s %12s %10s %10s %10s %10s\n",
+                "statement", "count", "parse(ms)", "plan(ms)", "run(ms)", "svc(ms)");
+
+        double parseTotal = 0;
+        double serviceTotal = 0;
+
+        for (Map<String, Object> row : rows) {
+            String key = String.valueOf(row.get("key"));
+            long count = ((Number) row.get("count")).longValue();
+            double parseSum = ((Number) row.get("parse_sum")).doubleValue();
+            double planSum = ((Number) row.get("plan_sum")).doubleValue();
+            double runSum = ((Number) row.get("run_sum")).doubleValue();
+            double serviceSum = ((Number) row.get("service_sum")).doubleValue();
+
+            parseTotal += parseSum;
+            serviceTotal += serviceSum;
+
+            console.yellow("%-60s", key.length() > 60 ? key.substring(0, 57) + "..." : key);
+            console.green(" %,12d %10.3f %10.3f %10.3f %10.3f\n",
+                    count,
+                    count > 0 ? parseSum * 1000 / count : 0,
+                    count > 0 ? planSum * 1000 / count : 0,
+                    count > 0 ? runSum * 1000 / count : 0,
+                    count > 0 ? serviceSum * 1000 / count : 0);
+        }
+
+        console.magenta("Total parse time: %.1fs (%.1f%% of service time)\n",
+                parseTotal, serviceTotal > 0 ? parseTotal * 100 / serviceTotal : 0);
+
+        if (reset) {
+            try {
+                jdbcTemplate.execute("SELECT crdb_internal.reset_sql_stats()");
+                console.green("Statement statistics reset\n");
+            } catch (DataAccessException e) {
+                console.red("Unable to reset statement statistics: %s\n", e.getMessage());
+            }
+        }
+    }
 }
@@ -1,8 +1,13 @@
 package io.roach.workload.common.cli;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.shell.standard.ShellCommandGroup;
@@ -15,7 +20,11 @@ import com.zaxxer.hikari.HikariConfigMXBean;
 import com.zaxxer.hikari.HikariDataSource;
 import com.zaxxer.hikari.HikariPoolMXBean;
 
+import io.roach.workload.common.jpa.RoutingDataSource;
 import io.roach.workload.common.util.BoundedExecutor;
+import io.roach.workload.common.util.CallMetric;
+import io.roach.workload.common.util.DurationFormat;
+import io.roach.workload.common.util.PoolSizeAdvisor;
 
 @ShellComponent
 @ShellCommandGroup("Connection and Thread Pool Commands")
@@ -23,6 +32,9 @@ public class Pools {
     @Autowired
     private HikariDataSource hikariDataSource;
 
+    @Autowired(required = false)
+    private RoutingDataSource routingDataSource;
+
     @Autowired
     private Console console;
 
@@ -32,13 +44,20 @@ public class Pools {
     @Autowired
     private ScheduledExecutorService scheduledExecutorService;
 
+    private final AtomicBoolean autotuneActive = new AtomicBoolean();
+
     @ShellMethod(value = "Configure connection and thread pool size", key = {"pool-size", "ps"})
     @ShellMethodAvailability("noActiveWorkersCheck")
     public void poolSize(
             @ShellOption(help = "connection pool max size (guide: 4x vCPUs / n:of pools)", defaultValue = "50") int maxConns,
             @ShellOption(help = "connection pool min idle size (guide: same as max size)", defaultValue = "10") int minIdle,
             @ShellOption(help = "thread pool size (guide: 2x vCPUs of host)", defaultValue = "-1") int threadCount,
-            @ShellOption(help = "thread queue size (guide: 2x pool size)", defaultValue = "-1") int queueSize) {
+            @ShellOption(help = "thread queue size (guide: 2x pool size)", defaultValue = "-1") int queueSize,
+            @ShellOption(help = "use virtual threads with threadCount as concurrency limit (Java 21+)", defaultValue = "false") boolean virtualThreads) {
+        if (virtualThreads && !BoundedExecutor.isVirtualThreadsSupported()) {
+            console.red("Virtual threads not supported by this JVM (%s)\n", System.getProperty("java.version"));
+            return;
+        }
         if (threadCount < 0) {
             threadCount = Runtime.getRuntime().availableProcessors() * 2;
             console.green("Adjusting threadCount to %d (vcpu*2)\n", threadCount);
@@ -54,10 +73,158 @@ public class Pools {
             throw new IllegalArgumentException("Queue size must be >= thread size");
         }
 
+        setConnectionPoolSize(maxConns, minIdle);
+
+        boundedExecutor.cancelAndRestart(threadCount, queueSize, virtualThreads);
+    }
+
+    private void setConnectionPoolSize(int maxConns, int minIdle) {
         hikariDataSource.setMaximumPoolSize(maxConns);
         hikariDataSource.setMinimumIdle(minIdle);
 
-        boundedExecutor.cancelAndRestart(threadCount, queueSize);
+        if (routingDataSource != null) {
+            routingDataSource.getPools().values().forEach(pool -> {
+                pool.setMaximumPoolSize(maxConns);
+                pool.setMinimumIdle(minIdle);
+            });
+        }
+    }
+
+    private int threadsAwaitingConnection() {
+        if (routingDataSource != null) {
+            return routingDataSource.getPools().values().stream()
+                    .map(HikariDataSource::getHikariPoolMXBean)
+                    .mapToInt(mxBean -> mxBean != null ? mxBean.getThreadsAwaitingConnection() : 0)
+                    .sum();
+        }
+        HikariPoolMXBean mxBean = hikariDataSource.getHikariPoolMXBean();
+        return mxBean != null ? mxBean.getThreadsAwaitingConnection() : 0;
+    }
+
+    @ShellMethod(value = "Probe connection pool sizes under the running workload and recommend the best",
+            key = {"autotune", "at"})
+    @ShellMethodAvailability("activeWorkersCheck")
+    public void autotune(
+            @ShellOption(help = "comma separated connection pool sizes to probe, in increasing order",
+                    defaultValue = "8,16,32,64,128") String sizes,
+            @ShellOption(help = "probe duration per pool size", defaultValue = "30s") String probeTime,
+            @ShellOption(help = "settle time after each resize excluded from the probe", defaultValue = "5s") String settleTime,
+            @ShellOption(help = "target p99 latency in ms", defaultValue = "100") double targetP99,
+            @ShellOption(help = "apply the recommended connection pool size", defaultValue = "false") boolean apply) {
+        final List<Integer> poolSizes = new ArrayList<>();
+        for (String size : sizes.split(",")) {
+            int poolSize = Integer.parseInt(size.trim());
+            if (poolSize <= 0) {
+                throw new IllegalArgumentException("Pool size must be > 0: " + poolSize);
+            }
+            if (poolSize > boundedExecutor.getCorePoolSize()) {
+                console.yellow("Skipping pool size %d - exceeds thread pool size %d\n",
+                        poolSize, boundedExecutor.getCorePoolSize());
+                continue;
+            }
+            poolSizes.add(poolSize);
+        }
+        if (poolSizes.isEmpty()) {
+            throw new IllegalArgumentException("No pool sizes to probe");
+        }
+
+        final Duration probeDuration = DurationFormat.parseDuration(probeTime);
+        final Duration settleDuration = DurationFormat.parseDuration(settleTime);
+
+        final CallMetric callMetric = boundedExecutor.getCallMetric();
+        // Probes are recorded as stages, which would interleave with a load profile or another probe
+        if (callMetric.isStageActive() || !autotuneActive.compareAndSet(false, true)) {
+            console.red("A load profile or autotune is in progress - try again when done\n");
+            return;
+        }
+
+        final int originalMaxConns = hikariDataSource.getMaximumPoolSize();
+        final int originalMinIdle = hikariDataSource.getMinimumIdle();
+
+        final int firstStage = callMetric.getStageResults().size();
+        final List<Double> awaiting = new ArrayList<>();
+        final long[] awaitingSum = new long[1];
+        final int[] awaitingSamples = new int[1];
+        final int[] step = {-1};
+        final long[] stepStartTime = new long[1];
+        final AtomicReference<ScheduledFuture<?>> future = new AtomicReference<>();
+
+        console.magenta("Probing pool sizes %s for %s each (target p99 %.1f ms)\n", poolSizes, probeDuration, targetP99);
+
+        future.set(scheduledExecutorService.scheduleAtFixedRate(() -> {
+            boolean cancelled = !boundedExecutor.hasActiveWorkers();
+            long elapsed = System.nanoTime() - stepStartTime[0];
+
+            if (step[0] >= 0 && !cancelled) {
+                if (elapsed < settleDuration.toNanos()) {
+                    return;
+                }
+                if (elapsed < (settleDuration.plus(probeDuration)).toNanos()) {
+                    if (awaitingSamples[0] == 0) {
+                        int poolSize = poolSizes.get(step[0]);
+                        callMetric.beginStage(step[0] + 1, "pool " + poolSize, poolSize);
+                    }
+                    awaitingSum[0] += threadsAwaitingConnection();
+                    awaitingSamples[0]++;
+                    return;
+                }
+            }
+
+            if (awaitingSamples[0] > 0) {
+                callMetric.endStage();
+                awaiting.add(awaitingSum[0] / (double) awaitingSamples[0]);
+                awaitingSum[0] = 0;
+                awaitingSamples[0] = 0;
+            }
+
+            if (!cancelled && step[0] + 1 < poolSizes.size()) {
+                step[0]++;
+                int poolSize = poolSizes.get(step[0]);
+                setConnectionPoolSize(poolSize, poolSize);
+                stepStartTime[0] = System.nanoTime();
+                console.magenta("Probing pool size %d (%d of %d)\n", poolSize, step[0] + 1, poolSizes.size());
+                return;
+            }
+
+            future.get().cancel(false);
+            autotuneActive.set(false);
+
+            List<CallMetric.StageResult> results = callMetric.getStageResults();
+            List<PoolSizeAdvisor.Probe> probes = new ArrayList<>();
+            for (int i = firstStage; i < results.size() && i - firstStage < awaiting.size(); i++) {
+                CallMetric.StageResult result = results.get(i);
+                probes.add(new PoolSizeAdvisor.Probe((int) result.getLevel(),
+                        result.opsPerSec(),
+                        result.getSnapshot().valueAtPercentile(.5),
+                        result.getSnapshot().valueAtPercentile(.99),
+                        awaiting.get(i - firstStage)));
+            }
+
+            PoolSizeAdvisor.Probe best = PoolSizeAdvisor.recommend(probes, targetP99);
+
+            console.magenta("Pool size probe results%s:\n", cancelled ? " (cancelled)" : "");
+            PoolSizeAdvisor.prettyPrint(probes, best, s -> console.yellow("%s\n", s));
+
+            if (best == null) {
+                setConnectionPoolSize(originalMaxConns, originalMinIdle);
+                console.red("No pool size met the p99 target of %.1f ms - restored pool size %d\n",
+                        targetP99, originalMaxConns);
+                return;
+            }
+
+            console.green("Recommended: pool-size --max-conns %d --min-idle %d\n",
+                    best.getPoolSize(), best.getPoolSize());
+            console.green("\t%.1f op/s p99 %.2f ms with %.1f threads awaiting connection\n",
+                    best.getOpsPerSec(), best.getP99Millis(), best.getAvgThreadsAwaiting());
+
+            if (apply) {
+                setConnectionPoolSize(best.getPoolSize(), best.getPoolSize());
+                console.green("Applied connection pool size %d\n", best.getPoolSize());
+            } else {
+                setConnectionPoolSize(originalMaxConns, originalMinIdle);
+                console.green("Restored connection pool size %d\n", originalMaxConns);
+            }
+        }, 0, 1, TimeUnit.SECONDS));
     }
 
     @ShellMethod(value = "Print connection and thread pool information", key = {"pool-size-info", "psi"})
@@ -85,6 +252,8 @@ public class Pools {
 
             ThreadPoolStats stats = ThreadPoolStats.from(boundedExecutor);
             console.yellow("Thread pool status:\n");
+            console.green("\tvirtualThreads: %s\n", stats.virtualThreads);
+            console.green("\tavailablePermits: %s\n", stats.availablePermits);
             console.green("\tpoolSize: %s\n", stats.poolSize);
             console.green("\tmaximumPoolSize: %s\n", stats.maximumPoolSize);
             console.green("\tcorePoolSize: %s\n", stats.corePoolSize);
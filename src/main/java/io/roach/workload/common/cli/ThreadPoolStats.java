@@ -8,6 +8,9 @@ import io.roach.workload.common.util.BoundedExecutor;
 public class ThreadPoolStats {
     public static ThreadPoolStats from(BoundedExecutor boundedExecutor) {
         ThreadPoolStats instance = new ThreadPoolStats();
+        instance.virtualThreads = boundedExecutor.isVirtualThreads();
+        instance.availablePermits = boundedExecutor.getAvailablePermits();
+
         ExecutorService executorService = boundedExecutor.getExecutorService();
         if (executorService instanceof ThreadPoolExecutor) {
             ThreadPoolExecutor pool = (ThreadPoolExecutor) executorService;
@@ -18,10 +21,21 @@ public class ThreadPoolStats {
             instance.taskCount = pool.getTaskCount();
             instance.largestPoolSize = pool.getLargestPoolSize();
             instance.completedTaskCount = pool.getCompletedTaskCount();
+        } else {
+            // One virtual thread per worker, bounded by the semaphore
+            instance.corePoolSize = boundedExecutor.getCorePoolSize();
+            instance.poolSize = boundedExecutor.activeWorkers();
+            instance.maximumPoolSize = boundedExecutor.getCorePoolSize();
+            instance.activeCount = boundedExecutor.activeWorkers();
+            instance.taskCount = boundedExecutor.getTaskCount();
+            instance.largestPoolSize = boundedExecutor.getLargestActiveCount();
+            instance.completedTaskCount = boundedExecutor.getCompletedTaskCount();
         }
         return instance;
     }
 
+    public boolean virtualThreads;
+
     public int maximumPoolSize;
 
     public int poolSize;
@@ -35,4 +49,6 @@ public class ThreadPoolStats {
     public int largestPoolSize;
 
     public long completedTaskCount;
+
+    public int availablePermits;
 }
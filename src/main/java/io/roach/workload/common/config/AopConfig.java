@@ -1,14 +1,34 @@
 package io.roach.workload.common.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 
 import io.roach.workload.common.aspect.RetryableAspect;
+import io.roach.workload.common.aspect.SavepointRetryAspect;
 import io.roach.workload.common.aspect.SessionHintsAspect;
+import io.roach.workload.common.util.DurationFormat;
+import io.roach.workload.common.util.RetryBudget;
 
 public class AopConfig {
     @Bean
-    public RetryableAspect retryableAspect() {
-        return new RetryableAspect();
+    public RetryBudget retryBudget(
+            @Value("${roach.retry.budget-capacity:0}") int capacity,
+            @Value("${roach.retry.token-ratio:0.1}") double tokenRatio,
+            @Value("${roach.retry.circuit-threshold:0}") double circuitThreshold,
+            @Value("${roach.retry.circuit-min-calls:100}") int circuitMinCalls,
+            @Value("${roach.retry.circuit-open-time:5s}") String circuitOpenTime) {
+        return new RetryBudget(capacity, tokenRatio, circuitThreshold, circuitMinCalls,
+                DurationFormat.parseDuration(circuitOpenTime));
+    }
+
+    @Bean
+    public RetryableAspect retryableAspect(RetryBudget retryBudget) {
+        return new RetryableAspect(retryBudget);
+    }
+
+    @Bean
+    public SavepointRetryAspect savepointRetryAspect(RetryableAspect retryableAspect) {
+        return new SavepointRetryAspect(retryableAspect.getRetryMetric(), retryableAspect.getRetryBudget());
     }
 
     @Bean
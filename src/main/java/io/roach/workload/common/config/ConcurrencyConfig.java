@@ -17,6 +17,9 @@ public class ConcurrencyConfig {
     @Value("${roach.thread-queue-size}")
     private int queueSize;
 
+    @Value("${roach.virtual-threads:false}")
+    private boolean virtualThreads;
+
     @Bean(destroyMethod = "shutdown")
     public ScheduledExecutorService scheduledExecutor() {
         return Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
@@ -24,7 +27,7 @@ public class ConcurrencyConfig {
 
     @Bean(destroyMethod = "shutdown")
     public BoundedExecutor boundedExecutor() {
-        return new BoundedExecutor(corePoolSize(), queueSize());
+        return new BoundedExecutor(corePoolSize(), queueSize(), virtualThreads);
     }
 
     private int corePoolSize() {
@@ -1,19 +1,35 @@
 package io.roach.workload.common.config;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
 
+import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
+import io.roach.workload.common.jpa.PgJdbcTemplate;
+import io.roach.workload.common.jpa.RoutingDataSource;
+import io.roach.workload.common.jpa.SwitchableDataSource;
+
 import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
 import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
 
@@ -21,6 +37,14 @@ import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
 public class DataSourceConfig {
     public static final String SQL_TRACE_LOGGER = "io.roach.SQL_TRACE";
 
+    private static final String ENDPOINTS_PROPERTY = "roach.datasource.endpoints";
+
+    private static Map<String, String> endpoints(Environment environment) {
+        return Binder.get(environment)
+                .bind(ENDPOINTS_PROPERTY, Bindable.mapOf(String.class, String.class))
+                .orElse(new LinkedHashMap<>());
+    }
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final Logger traceLogger = LoggerFactory.getLogger(SQL_TRACE_LOGGER);
@@ -28,6 +52,21 @@ public class DataSourceConfig {
     @Value("${roach.application-name}")
     private String appName;
 
+    @Value("${roach.datasource.fallback:least_active}")
+    private String fallback;
+
+    @Value("${roach.statement-cache.prepare-threshold:5}")
+    private int prepareThreshold;
+
+    @Value("${roach.statement-cache.cache-queries:256}")
+    private int preparedStatementCacheQueries;
+
+    @Value("${roach.statement-cache.cache-size-mib:5}")
+    private int preparedStatementCacheSizeMiB;
+
+    @Autowired
+    private Environment environment;
+
     @Bean
     @Primary
     @ConfigurationProperties("spring.datasource")
@@ -45,25 +84,53 @@ public class DataSourceConfig {
 
         ds.addDataSourceProperty("reWriteBatchedInserts", true); // case sensitive
 
-//        ds.addDataSourceProperty("cachePrepStmts", "true");
-//        ds.addDataSourceProperty("prepStmtCacheSize", "250");
-//        ds.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-//        ds.addDataSourceProperty("useServerPrepStmts", "true");
+        // Per connection server-side prepared statement cache
+        ds.addDataSourceProperty("prepareThreshold", prepareThreshold);
+        ds.addDataSourceProperty("preparedStatementCacheQueries", preparedStatementCacheQueries);
+        ds.addDataSourceProperty("preparedStatementCacheSizeMiB", preparedStatementCacheSizeMiB);
 
         ds.addDataSourceProperty("application_name", appName);
         ds.addDataSourceProperty("ApplicationName", appName);
         return ds;
     }
 
+    /**
+     * Optional locality-aware routing with one pool per endpoint, using the same pool settings
+     * as the target data source.
+     */
+    @Bean(destroyMethod = "close")
+    @Conditional(EndpointsConfigured.class)
+    public RoutingDataSource routingDataSource() {
+        HikariDataSource template = targetDataSource();
+
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        endpoints(environment).forEach((key, url) -> {
+            HikariConfig config = new HikariConfig();
+            template.copyStateTo(config);
+            config.setJdbcUrl(url);
+            config.setPoolName("pool-" + key);
+            pools.put(key, new HikariDataSource(config));
+            logger.info("Routing key '{}' to endpoint {}", key, url);
+        });
+
+        return new RoutingDataSource(pools, RoutingDataSource.Fallback.parse(fallback));
+    }
+
+    /**
+     * The data source used by all workloads, bypassing the logging proxy unless SQL tracing
+     * is enabled.
+     */
     @Bean
     @Primary
-    public DataSource primaryDataSource() {
-        return loggingProxy(targetDataSource());
+    public SwitchableDataSource primaryDataSource(ObjectProvider<RoutingDataSource> routingDataSource) {
+        RoutingDataSource routing = routingDataSource.getIfAvailable();
+        DataSource dataSource = routing != null ? routing : targetDataSource();
+        return new SwitchableDataSource(dataSource, loggingProxy(dataSource), traceLogger.isTraceEnabled());
     }
 
     @Bean
-    public JdbcTemplate jdbcTemplate() {
-        return new JdbcTemplate(primaryDataSource());
+    public PgJdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new PgJdbcTemplate(dataSource);
     }
 
     private DataSource loggingProxy(DataSource dataSource) {
@@ -79,4 +146,11 @@ public class DataSourceConfig {
                 .multiline()
                 .build();
     }
+
+    static class EndpointsConfigured implements Condition {
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return !endpoints(context.getEnvironment()).isEmpty();
+        }
+    }
 }
@@ -0,0 +1,46 @@
+package io.roach.workload.common.jpa;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGStatement;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * JdbcTemplate applying pgjdbc specific statement settings, such as the number of
+ * executions of the same SQL text on a connection before it's server-side prepared.
+ * Settings can be changed at runtime and apply to statements created afterwards.
+ */
+public class PgJdbcTemplate extends JdbcTemplate {
+    private volatile Integer prepareThreshold;
+
+    public PgJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    /**
+     * @return prepare threshold or null for the connection default
+     */
+    public Integer getPrepareThreshold() {
+        return prepareThreshold;
+    }
+
+    /**
+     * @param prepareThreshold executions before server-side prepare, 0 to disable or null
+     * for the connection default (roach.statement-cache.prepare-threshold)
+     */
+    public void setPrepareThreshold(Integer prepareThreshold) {
+        this.prepareThreshold = prepareThreshold;
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        super.applyStatementSettings(stmt);
+        Integer threshold = this.prepareThreshold;
+        if (threshold != null && stmt.isWrapperFor(PGStatement.class)) {
+            stmt.unwrap(PGStatement.class).setPrepareThreshold(threshold);
+        }
+    }
+}
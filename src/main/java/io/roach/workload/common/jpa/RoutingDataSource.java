@@ -0,0 +1,146 @@
+package io.roach.workload.common.jpa;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Routing data source with one connection pool per endpoint, typically a gateway node in
+ * each region. The pool is selected by a thread bound routing key (such as a region name)
+ * at connection checkout. Calls without a key, or with a key that has no endpoint, are
+ * spread over all pools by a fallback policy.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    public enum Fallback {
+        round_robin,
+        least_active;
+
+        public static Fallback parse(String value) {
+            return valueOf(value.trim().toLowerCase(Locale.ENGLISH).replace('-', '_'));
+        }
+    }
+
+    private static final ThreadLocal<String> routingKey = new ThreadLocal<>();
+
+    public static void setRoutingKey(String key) {
+        routingKey.set(key);
+    }
+
+    public static String getRoutingKey() {
+        return routingKey.get();
+    }
+
+    public static void clearRoutingKey() {
+        routingKey.remove();
+    }
+
+    /**
+     * Wrap a task to run with a routing key bound to the calling thread.
+     *
+     * @param key the routing key (endpoint name)
+     * @param task the task to wrap
+     * @return the wrapped task
+     */
+    public static Runnable withRoutingKey(String key, Runnable task) {
+        return () -> {
+            routingKey.set(key);
+            try {
+                task.run();
+            } finally {
+                routingKey.remove();
+            }
+        };
+    }
+
+    /**
+     * Wrap a polling task to run with a routing key bound to the calling thread.
+     *
+     * @param key the routing key (endpoint name)
+     * @param task the task to wrap
+     * @return the wrapped task
+     */
+    public static BooleanSupplier withRoutingKey(String key, BooleanSupplier task) {
+        return () -> {
+            routingKey.set(key);
+            try {
+                return task.getAsBoolean();
+            } finally {
+                routingKey.remove();
+            }
+        };
+    }
+
+    private final Map<String, HikariDataSource> pools;
+
+    private final List<String> keys;
+
+    private final Fallback fallback;
+
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    public RoutingDataSource(Map<String, HikariDataSource> pools, Fallback fallback) {
+        if (pools.isEmpty()) {
+            throw new IllegalArgumentException("No endpoints");
+        }
+        this.pools = Collections.unmodifiableMap(new LinkedHashMap<>(pools));
+        this.keys = Collections.unmodifiableList(new ArrayList<>(pools.keySet()));
+        this.fallback = fallback;
+
+        setTargetDataSources(new HashMap<>(pools));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = routingKey.get();
+        if (key != null && pools.containsKey(key)) {
+            return key;
+        }
+        return fallbackKey();
+    }
+
+    private String fallbackKey() {
+        if (fallback == Fallback.least_active) {
+            String leastActiveKey = keys.get(0);
+            int leastActive = Integer.MAX_VALUE;
+            for (String key : keys) {
+                HikariPoolMXBean mxBean = pools.get(key).getHikariPoolMXBean();
+                int active = mxBean != null ? mxBean.getActiveConnections() : 0;
+                if (active < leastActive) {
+                    leastActive = active;
+                    leastActiveKey = key;
+                }
+            }
+            return leastActiveKey;
+        }
+        return keys.get((roundRobin.getAndIncrement() & Integer.MAX_VALUE) % keys.size());
+    }
+
+    /**
+     * @return the connection pools keyed by endpoint name in configuration order
+     */
+    public Map<String, HikariDataSource> getPools() {
+        return pools;
+    }
+
+    public Fallback getFallback() {
+        return fallback;
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,46 @@
+package io.roach.workload.common.jpa;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Data source that hands out connections either directly from the target data source or
+ * through a tracing proxy, switchable at runtime. With tracing off, statements run on the
+ * plain pooled connections without any proxy dispatch. Connections already checked out
+ * keep their path until closed.
+ */
+public class SwitchableDataSource extends DelegatingDataSource {
+    private final DataSource tracingDataSource;
+
+    private volatile boolean tracing;
+
+    public SwitchableDataSource(DataSource targetDataSource, DataSource tracingDataSource, boolean tracing) {
+        super(targetDataSource);
+        this.tracingDataSource = tracingDataSource;
+        this.tracing = tracing;
+    }
+
+    public boolean isTracing() {
+        return tracing;
+    }
+
+    public void setTracing(boolean tracing) {
+        this.tracing = tracing;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return tracing ? tracingDataSource.getConnection() : obtainTargetDataSource().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return tracing
+                ? tracingDataSource.getConnection(username, password)
+                : obtainTargetDataSource().getConnection(username, password);
+    }
+}
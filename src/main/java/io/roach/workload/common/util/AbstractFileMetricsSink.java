@@ -0,0 +1,128 @@
+package io.roach.workload.common.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Base class for file sinks that format rows on the sampler thread and hand them off to
+ * a single background writer thread with a buffered writer. If the writer falls behind,
+ * rows are dropped rather than blocking the caller.
+ */
+public abstract class AbstractFileMetricsSink implements MetricsSink {
+    private static final int MAX_PENDING_WRITES = 1024;
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Path path;
+
+    private final BufferedWriter writer;
+
+    private final ExecutorService writerExecutor;
+
+    private final LongAdder rowsWritten = new LongAdder();
+
+    private final LongAdder rowsDropped = new LongAdder();
+
+    protected AbstractFileMetricsSink(Path path) throws IOException {
+        this.path = path;
+        this.writer = Files.newBufferedWriter(path, UTF_8);
+        this.writerExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_PENDING_WRITES), r -> {
+            Thread t = new Thread(r, "metrics-sink");
+            t.setDaemon(true);
+            return t;
+        }, (r, executor) -> rowsDropped.increment());
+
+        String header = formatHeader();
+        if (header != null) {
+            this.writer.write(header);
+            this.writer.newLine();
+        }
+    }
+
+    /**
+     * @return optional header line or null
+     */
+    protected abstract String formatHeader();
+
+    protected abstract String formatRow(CallMetric.Interval interval);
+
+    protected abstract String formatRetryRow(RetryMetric.Interval interval);
+
+    @Override
+    public void accept(List<CallMetric.Interval> intervals) {
+        write(intervals, this::formatRow);
+    }
+
+    @Override
+    public void acceptRetries(List<RetryMetric.Interval> intervals) {
+        write(intervals, this::formatRetryRow);
+    }
+
+    private <T> void write(List<T> intervals, Function<T, String> formatter) {
+        if (intervals.isEmpty()) {
+            return;
+        }
+        final StringBuilder sb = new StringBuilder();
+        intervals.forEach(interval -> sb.append(formatter.apply(interval)).append(System.lineSeparator()));
+        final int rows = intervals.size();
+
+        writerExecutor.execute(() -> {
+            try {
+                writer.write(sb.toString());
+                writer.flush();
+                rowsWritten.add(rows);
+            } catch (IOException e) {
+                logger.warn("Unable to write metrics to " + path, e);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        writerExecutor.shutdown();
+        try {
+            if (!writerExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Metrics writer did not terminate in time: {}", path);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close " + path, e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    public long getRowsDropped() {
+        return rowsDropped.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (rows written: %d, dropped: %d)", path, getRowsWritten(), getRowsDropped());
+    }
+}
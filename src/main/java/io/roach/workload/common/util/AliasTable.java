@@ -0,0 +1,91 @@
+package io.roach.workload.common.util;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Walker/Vose alias table for O(1) weighted selection over static weights. Construction
+ * is O(n) and the table is immutable, so it can be shared by any number of threads.
+ *
+ * @param <E> the item type
+ */
+public class AliasTable<E> implements WeightedSampler<E> {
+    public static <E extends WeightedItem> AliasTable<E> of(List<E> items) {
+        return new AliasTable<>(items, WeightedItem::getWeight);
+    }
+
+    private final List<E> items;
+
+    private final double[] probability;
+
+    private final int[] alias;
+
+    public AliasTable(List<E> items, ToDoubleFunction<E> weightFunction) {
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("Empty collection");
+        }
+
+        final int n = items.size();
+        this.items = Collections.unmodifiableList(items);
+        this.probability = new double[n];
+        this.alias = new int[n];
+
+        double[] weights = new double[n];
+        double totalWeight = 0;
+        for (int i = 0; i < n; i++) {
+            weights[i] = Math.max(0, weightFunction.applyAsDouble(items.get(i)));
+            totalWeight += weights[i];
+        }
+
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        double[] scaled = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            // Fall back to uniform if all weights are zero
+            scaled[i] = totalWeight > 0 ? weights[i] * n / totalWeight : 1;
+            if (scaled[i] < 1) {
+                small.push(i);
+            } else {
+                large.push(i);
+            }
+        }
+
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int s = small.pop();
+            int l = large.pop();
+            probability[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1;
+            if (scaled[l] < 1) {
+                small.push(l);
+            } else {
+                large.push(l);
+            }
+        }
+
+        // Remaining entries are 1 within rounding error
+        while (!large.isEmpty()) {
+            probability[large.pop()] = 1;
+        }
+        while (!small.isEmpty()) {
+            probability[small.pop()] = 1;
+        }
+    }
+
+    @Override
+    public int nextIndex() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    @Override
+    public List<E> getItems() {
+        return items;
+    }
+}
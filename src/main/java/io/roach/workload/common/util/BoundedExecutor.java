@@ -1,41 +1,87 @@
 package io.roach.workload.common.util;
 
+import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.TransientDataAccessException;
 import org.springframework.transaction.TransactionSystemException;
+import org.springframework.util.ReflectionUtils;
 
 public class BoundedExecutor {
+    private static final long GATE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final CallMetric callMetric = new CallMetric();
 
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final AtomicInteger largestActiveCount = new AtomicInteger();
+
+    private final LongAdder taskCount = new LongAdder();
+
+    private final LongAdder completedTaskCount = new LongAdder();
+
     private int corePoolSize;
 
     private int queueSize;
 
+    private boolean virtualThreads;
+
     private Semaphore semaphore;
 
-    private ThreadPoolExecutor executorService;
+    private ExecutorService executorService;
 
     public BoundedExecutor(int corePoolSize, int queueSize) {
+        this(corePoolSize, queueSize, false);
+    }
+
+    /**
+     * @param corePoolSize number of platform threads, or the concurrency limit in virtual thread mode
+     * @param queueSize max number of submitted workers in platform thread mode
+     * @param virtualThreads run each worker on a virtual thread (requires Java 21+ at runtime)
+     */
+    public BoundedExecutor(int corePoolSize, int queueSize, boolean virtualThreads) {
         this.corePoolSize = corePoolSize;
         this.queueSize = queueSize;
-        this.semaphore = new Semaphore(queueSize);
-        this.executorService = newExecutorService(corePoolSize);
+        this.virtualThreads = virtualThreads && isVirtualThreadsSupported();
+        if (virtualThreads && !this.virtualThreads) {
+            logger.warn("Virtual threads not supported by this JVM ({}) - using platform threads",
+                    System.getProperty("java.version"));
+        }
+        this.semaphore = newSemaphore();
+        this.executorService = newExecutorService();
     }
 
-    private ThreadPoolExecutor newExecutorService(int poolSize) {
-        return new ThreadPoolExecutor(poolSize,
+    public static boolean isVirtualThreadsSupported() {
+        return ReflectionUtils.findMethod(Executors.class, "newVirtualThreadPerTaskExecutor") != null;
+    }
+
+    private Semaphore newSemaphore() {
+        // With virtual threads the semaphore is the only thing bounding concurrency
+        return new Semaphore(virtualThreads ? corePoolSize : queueSize);
+    }
+
+    private ExecutorService newExecutorService() {
+        if (virtualThreads) {
+            Method m = ReflectionUtils.findMethod(Executors.class, "newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) ReflectionUtils.invokeMethod(m, null);
+        }
+        return new ThreadPoolExecutor(corePoolSize,
                 Integer.MAX_VALUE,
                 0,
                 TimeUnit.MILLISECONDS,
@@ -53,6 +99,66 @@ public class BoundedExecutor {
     public <V> Future<V> submit(final Runnable task,
                                 final String groupName,
                                 final Duration duration) {
+        return submit(task, groupName, duration, null);
+    }
+
+    /**
+     * Submit a task that is run repeatedly for the given duration.
+     *
+     * @param task the task to run
+     * @param groupName the metric group name
+     * @param duration the total execution duration
+     * @param pacer optional open-loop pacer shared by the workers of a group, if null the
+     * task runs in a closed loop
+     * @return the task future or null if rejected
+     */
+    public <V> Future<V> submit(final Runnable task,
+                                final String groupName,
+                                final Duration duration,
+                                final Pacer pacer) {
+        return submit(task, groupName, duration, pacer, null);
+    }
+
+    /**
+     * Submit a task that is run repeatedly for the given duration while the gate is open.
+     * A worker with a closed gate stays idle without recording any calls until reopened,
+     * which allows staged load profiles to grow and shrink the number of active workers.
+     *
+     * @param task the task to run
+     * @param groupName the metric group name
+     * @param duration the total execution duration
+     * @param pacer optional open-loop pacer shared by the workers of a group
+     * @param gate optional gate, if null the worker is always active
+     * @return the task future or null if rejected
+     */
+    public <V> Future<V> submit(final Runnable task,
+                                final String groupName,
+                                final Duration duration,
+                                final Pacer pacer,
+                                final BooleanSupplier gate) {
+        return submitPolling(() -> {
+            task.run();
+            return true;
+        }, groupName, duration, pacer, gate);
+    }
+
+    /**
+     * Submit a task that tells whether it made a call, for tasks polling a queue or
+     * otherwise having nothing to do at times. Iterations returning false, like an empty
+     * poll, are not recorded as calls.
+     *
+     * @param task the task to run, returning false if no call was made
+     * @param groupName the metric group name
+     * @param duration the total execution duration
+     * @param pacer optional open-loop pacer shared by the workers of a group
+     * @param gate optional gate, if null the worker is always active
+     * @return the task future or null if rejected
+     */
+    public <V> Future<V> submitPolling(final BooleanSupplier task,
+                                       final String groupName,
+                                       final Duration duration,
+                                       final Pacer pacer,
+                                       final BooleanSupplier gate) {
         try {
             semaphore.acquire();
         } catch (InterruptedException e) {
@@ -60,16 +166,40 @@ public class BoundedExecutor {
             throw new IllegalStateException("Unable to acquire semaphore", e);
         }
 
+        final Semaphore permits = this.semaphore;
+
         try {
+            taskCount.increment();
             return executorService.submit(() -> {
+                largestActiveCount.accumulateAndGet(activeCount.incrementAndGet(), Math::max);
                 final CallMetric.Context context = callMetric.add(groupName);
                 try {
                     final long startTime = System.currentTimeMillis();
                     do {
-                        long time = context.enter();
+                        if (gate != null && !gate.getAsBoolean()) {
+                            LockSupport.parkNanos(GATE_POLL_NANOS);
+                            continue;
+                        }
+                        long time;
+                        long delayNanos = -1;
+                        if (pacer != null) {
+                            try {
+                                time = pacer.acquire();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                break;
+                            }
+                            // Latency is measured from intended start time
+                            delayNanos = System.nanoTime() - time;
+                        } else {
+                            time = context.enter();
+                        }
+                        boolean called = true;
                         try {
-                            task.run();
-                            context.exit(time, null);
+                            called = task.getAsBoolean();
+                            if (called) {
+                                context.exit(time, null);
+                            }
                         } catch (TransientDataAccessException | TransactionSystemException e) {
                             context.exit(time, e);
                             logger.warn("Transient error for " + groupName, e);
@@ -77,18 +207,24 @@ public class BoundedExecutor {
                             context.exit(time, e);
                             logger.error("Non-transient error - cancelling " + groupName, e);
                             break;
+                        } finally {
+                            if (called && delayNanos >= 0) {
+                                context.recordDelay(delayNanos);
+                            }
                         }
                     } while (System.currentTimeMillis() - startTime < duration.toMillis()
                             && !Thread.interrupted()
                             && !isShutdown());
                 } finally {
-                    semaphore.release();
+                    activeCount.decrementAndGet();
+                    completedTaskCount.increment();
+                    permits.release();
                     callMetric.remove(groupName);
                 }
                 return null;
             });
         } catch (RejectedExecutionException e) {
-            semaphore.release();
+            permits.release();
             return null;
         }
     }
@@ -112,8 +248,17 @@ public class BoundedExecutor {
     }
 
     public void cancelAndRestart(int corePoolSize, int queueSize) {
+        cancelAndRestart(corePoolSize, queueSize, virtualThreads);
+    }
+
+    public void cancelAndRestart(int corePoolSize, int queueSize, boolean virtualThreads) {
         this.corePoolSize = corePoolSize;
         this.queueSize = queueSize;
+        this.virtualThreads = virtualThreads && isVirtualThreadsSupported();
+        if (virtualThreads && !this.virtualThreads) {
+            logger.warn("Virtual threads not supported by this JVM ({}) - using platform threads",
+                    System.getProperty("java.version"));
+        }
 
         cancelAndRestart();
     }
@@ -140,10 +285,15 @@ public class BoundedExecutor {
 
             this.callMetric.clear();
 
-            logger.info("Creating new thread pool with core size {} and queue size {}", corePoolSize, queueSize);
+            if (virtualThreads) {
+                logger.info("Creating new virtual thread executor with concurrency limit {}", corePoolSize);
+            } else {
+                logger.info("Creating new thread pool with core size {} and queue size {}", corePoolSize, queueSize);
+            }
 
-            this.semaphore = new Semaphore(queueSize);
-            this.executorService = newExecutorService(corePoolSize);
+            this.largestActiveCount.set(0);
+            this.semaphore = newSemaphore();
+            this.executorService = newExecutorService();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -158,6 +308,34 @@ public class BoundedExecutor {
     }
 
     public int activeWorkers() {
-        return executorService.getActiveCount();
+        return activeCount.get();
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public int getAvailablePermits() {
+        return semaphore.availablePermits();
+    }
+
+    public int getLargestActiveCount() {
+        return largestActiveCount.get();
+    }
+
+    public long getTaskCount() {
+        return taskCount.sum();
+    }
+
+    public long getCompletedTaskCount() {
+        return completedTaskCount.sum();
     }
 }
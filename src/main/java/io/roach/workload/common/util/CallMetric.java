@@ -5,40 +5,226 @@ import java.io.StringWriter;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 public class CallMetric {
     private static String separator(int len) {
         return new String(new char[len]).replace('\0', '-');
     }
 
-    private static final String HEADER_PATTERN = "%-40s %7s %8s %10s %10s %10s %10s %10s %11s %11s";
+    private static final String HEADER_PATTERN = "%-40s %7s %8s %10s %10s %10s %10s %10s %10s %10s %10s %11s %11s";
 
-    private static final String ROW_PATTERN = "%-40s %7.0f %c%7.1f %10.1f %10.2f %10.2f %10.2f %10.2f %,11d %,11d";
+    private static final String ROW_PATTERN = "%-40s %7.0f %c%7.1f %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f %,11d %,11d";
 
-    private static final String FOOTER_PATTERN = "%-40s %7.0f %c%7.1f %10.1f %10.2f %10.2f %10.2f %10.2f %,11d %,11d";
+    private static final String FOOTER_PATTERN = "%-40s %7.0f %c%7.1f %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f %,11d %,11d";
 
-    public static final int FRAME_SIZE = 10_000;
+    private static final String STAGE_HEADER_PATTERN = "%-5s %-20s %7s %10s %10s %10s %10s %10s %11s %11s %5s";
+
+    private static final String STAGE_ROW_PATTERN = "%-5d %-20s %7.0f %10.1f %10.2f %10.2f %10.2f %10.2f %,11d %,11d %5s";
+
+    /**
+     * Relative throughput gain per relative load increase below which a stage is considered
+     * past the knee of the throughput curve.
+     */
+    private static final double KNEE_EFFICIENCY = 0.5;
 
     private final Map<String, Context> metrics = Collections.synchronizedMap(new TreeMap<>());
 
+    private final List<StageResult> stageResults = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile StageMark stageMark;
+
+    private final Set<String> excludedFromTotals = ConcurrentHashMap.newKeySet();
+
+    // Totals of removed contexts, so that stages outlive the workers recording them
+    private LatencyHistogram.Snapshot retiredSnapshot = LatencyHistogram.emptySnapshot();
+
+    private long retiredSuccessful;
+
+    private long retiredFailed;
+
     public Context add(String name) {
         return metrics.computeIfAbsent(name, supplier -> new Context(name));
     }
 
+    /**
+     * Exclude a context from the sum/avg row and stage results while still printing it.
+     * Used for breakdown rows of calls already measured by another context, and for
+     * helper workers like generators that don't issue the measured operations.
+     *
+     * @param name the context name
+     */
+    public void excludeFromTotals(String name) {
+        excludedFromTotals.add(name);
+    }
+
     public void remove(String name) {
-        metrics.remove(name);
+        synchronized (metrics) {
+            Context context = metrics.remove(name);
+            if (context != null && !excludedFromTotals.contains(name)) {
+                retiredSnapshot = retiredSnapshot.plus(context.histogram.snapshot());
+                retiredSuccessful += context.callsSuccess();
+                retiredFailed += context.callsFail();
+            }
+        }
     }
 
     public void clear() {
-        metrics.clear();
+        synchronized (metrics) {
+            metrics.clear();
+            retiredSnapshot = LatencyHistogram.emptySnapshot();
+            retiredSuccessful = 0;
+            retiredFailed = 0;
+        }
+        excludedFromTotals.clear();
+        stageResults.clear();
+        stageMark = null;
+    }
+
+    /**
+     * Mark the beginning of a load stage, closing the previous stage if any.
+     *
+     * @param ordinal the stage ordinal
+     * @param label the stage label
+     * @param level the stage load level (workers or target rate)
+     */
+    public void beginStage(int ordinal, String label, double level) {
+        endStage();
+        this.stageMark = new StageMark(ordinal, label, level, cumulativeSnapshot(), callsSuccess(), callsFail());
+    }
+
+    /**
+     * @return true if a stage is begun and not yet ended
+     */
+    public boolean isStageActive() {
+        return stageMark != null;
+    }
+
+    /**
+     * Close the current stage and record its results.
+     */
+    public void endStage() {
+        StageMark mark = this.stageMark;
+        if (mark != null) {
+            this.stageMark = null;
+            stageResults.add(new StageResult(mark,
+                    cumulativeSnapshot().minus(mark.snapshot),
+                    callsSuccess() - mark.callSuccessful,
+                    callsFail() - mark.callFailed,
+                    System.nanoTime() - mark.startTime));
+        }
+    }
+
+    public List<StageResult> getStageResults() {
+        synchronized (stageResults) {
+            return new ArrayList<>(stageResults);
+        }
+    }
+
+    /**
+     * Find the knee of the throughput curve, being the last stage before the relative
+     * throughput gain drops below half of the relative load increase.
+     *
+     * @return the knee stage or null if throughput scaled through all stages
+     */
+    public StageResult findKnee() {
+        List<StageResult> results = getStageResults();
+        for (int i = 1; i < results.size(); i++) {
+            StageResult prev = results.get(i - 1);
+            StageResult curr = results.get(i);
+            if (prev.opsPerSec() <= 0 || curr.level <= prev.level) {
+                continue;
+            }
+            double loadGain = curr.level / prev.level - 1;
+            double throughputGain = curr.opsPerSec() / prev.opsPerSec() - 1;
+            if (throughputGain / loadGain < KNEE_EFFICIENCY) {
+                return prev;
+            }
+        }
+        return null;
+    }
+
+    public void prettyPrintStages(Consumer<String> sink) {
+        sink.accept(String.format(Locale.US, STAGE_HEADER_PATTERN,
+                "stage", "level", "time(s)", "op/s", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)", "ok", "fail", "knee"));
+        sink.accept(String.format(Locale.US, STAGE_HEADER_PATTERN,
+                separator(5), separator(20), separator(7), separator(10), separator(10), separator(10),
+                separator(10), separator(10), separator(11), separator(11), separator(5)));
+
+        StageResult knee = findKnee();
+
+        getStageResults().forEach(result -> sink.accept(String.format(Locale.US,
+                STAGE_ROW_PATTERN,
+                result.ordinal,
+                result.label,
+                result.durationNanos / 1_000_000_000.0,
+                result.opsPerSec(),
+                result.snapshot.valueAtPercentile(.5),
+                result.snapshot.valueAtPercentile(.9),
+                result.snapshot.valueAtPercentile(.99),
+                result.snapshot.maxValue(),
+                result.callSuccessful,
+                result.callFailed,
+                result == knee ? "<--" : "")));
+    }
+
+    private LatencyHistogram.Snapshot cumulativeSnapshot() {
+        synchronized (metrics) {
+            LatencyHistogram.Snapshot aggregate = retiredSnapshot;
+            for (Context context : totalContexts()) {
+                aggregate = aggregate.plus(context.histogram.snapshot());
+            }
+            return aggregate;
+        }
+    }
+
+    private long callsSuccess() {
+        synchronized (metrics) {
+            return retiredSuccessful + totalContexts().stream().mapToLong(Context::callsSuccess).sum();
+        }
+    }
+
+    private long callsFail() {
+        synchronized (metrics) {
+            return retiredFailed + totalContexts().stream().mapToLong(Context::callsFail).sum();
+        }
+    }
+
+    private List<Context> totalContexts() {
+        List<Context> contexts = new ArrayList<>(metrics.size());
+        metrics.values().stream()
+                .filter(context -> !excludedFromTotals.contains(context.name))
+                .forEach(contexts::add);
+        return contexts;
+    }
+
+    /**
+     * Close the current measurement interval for all contexts. Printing and other
+     * consumers read the latest interval, so this is expected to be called once per
+     * reporting period by a single thread.
+     */
+    public void sample() {
+        synchronized (metrics) {
+            metrics.values().forEach(Context::sample);
+        }
+    }
+
+    /**
+     * @return the last closed measurement interval of all contexts
+     */
+    public List<Interval> getIntervals() {
+        synchronized (metrics) {
+            List<Interval> intervals = new ArrayList<>(metrics.size());
+            metrics.values().forEach(context -> intervals.add(context.interval));
+            return intervals;
+        }
     }
 
     public String prettyPrintHeader() {
@@ -53,7 +239,10 @@ public class CallMetric {
                 "p50(ms)",
                 "p90(ms)",
                 "p99(ms)",
+                "p999(ms)",
+                "max(ms)",
                 "mean(ms)",
+                "delay(ms)",
                 "ok",
                 "fail"
         );
@@ -67,7 +256,10 @@ public class CallMetric {
                 separator(10), // p50
                 separator(10), // p90
                 separator(10), // p99
+                separator(10), // p99.9
+                separator(10), // max
                 separator(10), // mean
+                separator(10), // delay p99
                 separator(11), // success
                 separator(11) // fail
         );
@@ -75,26 +267,34 @@ public class CallMetric {
     }
 
     public void prettyPrintBody(Consumer<String> sink) {
-        metrics.forEach((key, value) -> sink.accept(value.formatStats()));
+        synchronized (metrics) {
+            metrics.forEach((key, value) -> sink.accept(value.formatStats()));
+        }
     }
 
     public String prettyPrintFooter() {
         StringWriter sw = new StringWriter();
         PrintWriter pw = new PrintWriter(sw);
 
-        double timeAvg = metrics.values().stream().mapToDouble(Context::executionTimeSeconds).average()
-                .orElse(0);
+        double timeAvg;
+        double opsPerSecSum;
+        long successSum;
+        long failSum;
+        LatencyHistogram.Snapshot aggregate = LatencyHistogram.emptySnapshot();
+        LatencyHistogram.Snapshot aggregateDelay = LatencyHistogram.emptySnapshot();
 
-        double opsPerSecSum = metrics.values().stream().mapToDouble(Context::opsPerSec).sum();
-        double opsPerMinSum = metrics.values().stream().mapToDouble(Context::opsPerMin).sum();
-
-        double p50 = metrics.values().stream().mapToDouble(Context::p50).average().orElse(0);
-        double p90 = metrics.values().stream().mapToDouble(Context::p90).average().orElse(0);
-        double p99 = metrics.values().stream().mapToDouble(Context::p99).average().orElse(0);
-        double meanTime = metrics.values().stream().mapToDouble(Context::mean).average().orElse(0);
-
-        int successSum = metrics.values().stream().mapToInt(Context::callsSuccess).sum();
-        int failSum = metrics.values().stream().mapToInt(Context::callsFail).sum();
+        synchronized (metrics) {
+            List<Context> contexts = totalContexts();
+            timeAvg = contexts.stream().mapToDouble(Context::executionTimeSeconds).average()
+                    .orElse(0);
+            opsPerSecSum = contexts.stream().mapToDouble(Context::opsPerSec).sum();
+            successSum = contexts.stream().mapToLong(Context::callsSuccess).sum();
+            failSum = contexts.stream().mapToLong(Context::callsFail).sum();
+            for (Context context : contexts) {
+                aggregate = aggregate.plus(context.interval.snapshot);
+                aggregateDelay = aggregateDelay.plus(context.interval.delaySnapshot);
+            }
+        }
 
         pw.printf(Locale.US,
                 FOOTER_PATTERN,
@@ -102,11 +302,14 @@ public class CallMetric {
                 timeAvg,
                 ' ',
                 opsPerSecSum,
-                opsPerMinSum,
-                p50,
-                p90,
-                p99,
-                meanTime,
+                opsPerSecSum * 60,
+                aggregate.valueAtPercentile(.5),
+                aggregate.valueAtPercentile(.9),
+                aggregate.valueAtPercentile(.99),
+                aggregate.valueAtPercentile(.999),
+                aggregate.maxValue(),
+                aggregate.mean(),
+                aggregateDelay.valueAtPercentile(.99),
                 successSum,
                 failSum
         );
@@ -121,17 +324,32 @@ public class CallMetric {
 
         private final long startTime;
 
-        private final AtomicInteger callCount = new AtomicInteger();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private final LatencyHistogram delayHistogram = new LatencyHistogram();
 
-        private final AtomicInteger callSuccessful = new AtomicInteger();
+        private final LongAdder callSuccessful = new LongAdder();
 
-        private final AtomicInteger callFailed = new AtomicInteger();
+        private final LongAdder callFailed = new LongAdder();
 
-        private final List<Snapshot> snapshots = Collections.synchronizedList(new LinkedList<>());
+        private LatencyHistogram.Snapshot lastSnapshot = LatencyHistogram.emptySnapshot();
+
+        private LatencyHistogram.Snapshot lastDelaySnapshot = LatencyHistogram.emptySnapshot();
+
+        private long lastCallSuccessful;
+
+        private long lastCallFailed;
+
+        private long lastSampleTime;
+
+        private volatile Interval interval;
 
         private Context(String name) {
             this.name = name;
             this.startTime = System.nanoTime();
+            this.lastSampleTime = startTime;
+            this.interval = new Interval(name, System.currentTimeMillis(), LatencyHistogram.emptySnapshot(),
+                    LatencyHistogram.emptySnapshot(), 0, 0, 0);
         }
 
         public long enter() {
@@ -139,37 +357,47 @@ public class CallMetric {
         }
 
         public void exit(long beginTime, Throwable t) {
-            if (snapshots.size() > FRAME_SIZE) {
-                snapshots.remove(0);
-            }
-            snapshots.add(new Snapshot(beginTime));
-
-            callCount.incrementAndGet();
+            histogram.recordNanos(System.nanoTime() - beginTime);
             if (t != null) {
-                callFailed.incrementAndGet();
+                callFailed.increment();
             } else {
-                callSuccessful.incrementAndGet();
+                callSuccessful.increment();
             }
         }
 
+        /**
+         * Record the queueing delay of a call, i.e the time between its intended and
+         * actual start in open-loop mode.
+         *
+         * @param delayNanos delay in nanos
+         */
+        public void recordDelay(long delayNanos) {
+            delayHistogram.recordNanos(delayNanos);
+        }
+
+        private void sample() {
+            long now = System.nanoTime();
+            LatencyHistogram.Snapshot current = histogram.snapshot();
+            LatencyHistogram.Snapshot currentDelay = delayHistogram.snapshot();
+            long currentSuccessful = callSuccessful.sum();
+            long currentFailed = callFailed.sum();
+            this.interval = new Interval(name, System.currentTimeMillis(),
+                    current.minus(lastSnapshot), currentDelay.minus(lastDelaySnapshot),
+                    now - lastSampleTime, currentSuccessful - lastCallSuccessful, currentFailed - lastCallFailed);
+            this.lastSnapshot = current;
+            this.lastDelaySnapshot = currentDelay;
+            this.lastCallSuccessful = currentSuccessful;
+            this.lastCallFailed = currentFailed;
+            this.lastSampleTime = now;
+        }
+
         private double executionTimeSeconds() {
             return Duration.ofNanos(System.nanoTime() - startTime).toMillis() / 1000.0;
         }
 
         private String formatStats() {
-            double p50 = 0;
-            double p90 = 0;
-            double p99 = 0;
-
-            List<Double> latencies = sortedLatencies();
-
-            if (snapshots.size() > 1) {
-                p50 = percentile(latencies, .5);
-                p90 = percentile(latencies, .9);
-                p99 = percentile(latencies, .99);
-            }
-
-            final double opsPerSec = opsPerSec();
+            final Interval iv = this.interval;
+            final double opsPerSec = iv.opsPerSec();
 
             return String.format(Locale.US,
                     ROW_PATTERN,
@@ -178,92 +406,173 @@ public class CallMetric {
                     ' ',
                     opsPerSec,
                     opsPerSec * 60,
-                    p50,
-                    p90,
-                    p99,
-                    mean(),
-                    callSuccessful.get(),
-                    callFailed.get()
+                    iv.snapshot.valueAtPercentile(.5),
+                    iv.snapshot.valueAtPercentile(.9),
+                    iv.snapshot.valueAtPercentile(.99),
+                    iv.snapshot.valueAtPercentile(.999),
+                    iv.snapshot.maxValue(),
+                    iv.snapshot.mean(),
+                    iv.delaySnapshot.valueAtPercentile(.99),
+                    callSuccessful.sum(),
+                    callFailed.sum()
             );
         }
 
         private double opsPerSec() {
-            final int size = snapshots.size();
-            return size / Math.max(1,
-                    Duration.ofNanos(
-                                    (System.nanoTime() - (snapshots.isEmpty() ? 0 : snapshots.get(0).endTime)))
-                            .toMillis() / 1000.0);
+            return interval.opsPerSec();
         }
 
-        private double opsPerMin() {
-            return opsPerSec() * 60;
+        private long callsSuccess() {
+            return callSuccessful.sum();
         }
 
-        private double p50() {
-            return percentile(sortedLatencies(), .5);
+        private long callsFail() {
+            return callFailed.sum();
         }
+    }
+
+    /**
+     * Immutable measurements of one context for one sampling interval.
+     */
+    public static class Interval {
+        private final String name;
+
+        private final long timestamp;
+
+        private final LatencyHistogram.Snapshot snapshot;
+
+        private final LatencyHistogram.Snapshot delaySnapshot;
 
-        private double p90() {
-            return percentile(sortedLatencies(), .9);
+        private final long durationNanos;
+
+        private final long callSuccessful;
+
+        private final long callFailed;
+
+        private Interval(String name, long timestamp,
+                         LatencyHistogram.Snapshot snapshot, LatencyHistogram.Snapshot delaySnapshot,
+                         long durationNanos, long callSuccessful, long callFailed) {
+            this.name = name;
+            this.timestamp = timestamp;
+            this.snapshot = snapshot;
+            this.delaySnapshot = delaySnapshot;
+            this.durationNanos = durationNanos;
+            this.callSuccessful = callSuccessful;
+            this.callFailed = callFailed;
         }
 
-        private double p99() {
-            return percentile(sortedLatencies(), .99);
+        public String getName() {
+            return name;
         }
 
-        private int callsSuccess() {
-            return callSuccessful.get();
+        /**
+         * @return end of interval in epoch millis
+         */
+        public long getTimestamp() {
+            return timestamp;
         }
 
-        private int callsFail() {
-            return callFailed.get();
+        public LatencyHistogram.Snapshot getSnapshot() {
+            return snapshot;
         }
 
-        private double mean() {
-            List<Snapshot> copy = new ArrayList<>(snapshots);
-            return copy.stream().mapToDouble(Snapshot::durationMillis)
-                    .average()
-                    .orElse(0);
+        public LatencyHistogram.Snapshot getDelaySnapshot() {
+            return delaySnapshot;
         }
 
-        private List<Double> sortedLatencies() {
-            List<Snapshot> copy = new ArrayList<>(snapshots);
-            return copy.stream().map(Snapshot::durationMillis)
-                    .sorted()
-                    .collect(Collectors.toList());
+        public long getDurationNanos() {
+            return durationNanos;
         }
 
-        private double percentile(List<Double> latencies, double percentile) {
-            if (percentile < 0 || percentile > 1) {
-                throw new IllegalArgumentException(">=0 N <=1");
-            }
-            if (latencies.size() > 0) {
-                int index = (int) Math.ceil(percentile * latencies.size());
-                return latencies.get(index - 1);
-            }
-            return 0;
+        /**
+         * @return number of successful calls in the interval
+         */
+        public long getCallSuccessful() {
+            return callSuccessful;
+        }
+
+        /**
+         * @return number of failed calls in the interval
+         */
+        public long getCallFailed() {
+            return callFailed;
+        }
+
+        public double opsPerSec() {
+            return durationNanos > 0 ? snapshot.getTotalCount() / (durationNanos / 1_000_000_000.0) : 0;
         }
     }
 
-    private static class Snapshot implements Comparable<Snapshot> {
-        final long endTime = System.nanoTime();
+    private static class StageMark {
+        final int ordinal;
 
-        final long beginTime;
+        final String label;
 
-        Snapshot(long beginTime) {
-            if (beginTime > endTime) {
-                throw new IllegalArgumentException();
-            }
-            this.beginTime = beginTime;
+        final double level;
+
+        final LatencyHistogram.Snapshot snapshot;
+
+        final long callSuccessful;
+
+        final long callFailed;
+
+        final long startTime = System.nanoTime();
+
+        StageMark(int ordinal, String label, double level, LatencyHistogram.Snapshot snapshot,
+                  long callSuccessful, long callFailed) {
+            this.ordinal = ordinal;
+            this.label = label;
+            this.level = level;
+            this.snapshot = snapshot;
+            this.callSuccessful = callSuccessful;
+            this.callFailed = callFailed;
+        }
+    }
+
+    public static class StageResult {
+        private final int ordinal;
+
+        private final String label;
+
+        private final double level;
+
+        private final LatencyHistogram.Snapshot snapshot;
+
+        private final long callSuccessful;
+
+        private final long callFailed;
+
+        private final long durationNanos;
+
+        private StageResult(StageMark mark, LatencyHistogram.Snapshot snapshot,
+                            long callSuccessful, long callFailed, long durationNanos) {
+            this.ordinal = mark.ordinal;
+            this.label = mark.label;
+            this.level = mark.level;
+            this.snapshot = snapshot;
+            this.callSuccessful = callSuccessful;
+            this.callFailed = callFailed;
+            this.durationNanos = durationNanos;
+        }
+
+        public int getOrdinal() {
+            return ordinal;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public double getLevel() {
+            return level;
         }
 
-        public double durationMillis() {
-            return (endTime - beginTime) / 1_000_000.0;
+        public LatencyHistogram.Snapshot getSnapshot() {
+            return snapshot;
         }
 
-        @Override
-        public int compareTo(Snapshot o) {
-            return Long.compare(o.endTime, endTime);
+        public double opsPerSec() {
+            return durationNanos > 0 ? snapshot.getTotalCount() / (durationNanos / 1_000_000_000.0) : 0;
         }
     }
 }
@@ -0,0 +1,272 @@
+package io.roach.workload.common.util;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Row encoder for the PostgreSQL COPY text format, writing fields straight into a
+ * reusable byte buffer without intermediate strings. Fields are tab separated and rows
+ * newline terminated. Not thread-safe, intended to be used per thread and flushed to a
+ * {@link CopyIn} stream whenever {@link #isFull()}.
+ */
+public class CopyTextEncoder {
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL = "\\N".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TRUE = "t".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] FALSE = "f".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] ALPHA = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private final int flushThreshold;
+
+    private byte[] buffer;
+
+    private int position;
+
+    private boolean rowStart = true;
+
+    private long rows;
+
+    /**
+     * @param flushThreshold buffer size in bytes at which {@link #isFull()} returns true
+     */
+    public CopyTextEncoder(int flushThreshold) {
+        this.flushThreshold = flushThreshold;
+        this.buffer = new byte[flushThreshold + 1024];
+    }
+
+    /**
+     * Encode a string constant once, for use with {@link #appendEncoded(byte[])}.
+     */
+    public static byte[] encode(String value) {
+        CopyTextEncoder encoder = new CopyTextEncoder(value.length() * 2 + 16);
+        encoder.append(value);
+        return Arrays.copyOf(encoder.buffer, encoder.position);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+
+    private void separator() {
+        if (!rowStart) {
+            ensureCapacity(1);
+            buffer[position++] = '\t';
+        }
+        rowStart = false;
+    }
+
+    public CopyTextEncoder appendNull() {
+        return appendEncoded(NULL);
+    }
+
+    /**
+     * Append a pre-encoded (and escaped) field value.
+     */
+    public CopyTextEncoder appendEncoded(byte[] value) {
+        separator();
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, buffer, position, value.length);
+        position += value.length;
+        return this;
+    }
+
+    public CopyTextEncoder append(boolean value) {
+        return appendEncoded(value ? TRUE : FALSE);
+    }
+
+    public CopyTextEncoder append(long value) {
+        separator();
+        appendDigits(value);
+        return this;
+    }
+
+    public CopyTextEncoder append(UUID value) {
+        return appendUUID(value.getMostSignificantBits(), value.getLeastSignificantBits());
+    }
+
+    /**
+     * Append a random (version 4) UUID without creating a UUID instance.
+     */
+    public CopyTextEncoder appendRandomUUID() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long lsb = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return appendUUID(msb, lsb);
+    }
+
+    public CopyTextEncoder appendUUID(long msb, long lsb) {
+        separator();
+        ensureCapacity(36);
+        appendHex(msb >>> 32, 8);
+        buffer[position++] = '-';
+        appendHex(msb >>> 16, 4);
+        buffer[position++] = '-';
+        appendHex(msb, 4);
+        buffer[position++] = '-';
+        appendHex(lsb >>> 48, 4);
+        buffer[position++] = '-';
+        appendHex(lsb, 12);
+        return this;
+    }
+
+    private void appendHex(long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer[position + i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+        position += digits;
+    }
+
+    private void appendDigits(long value) {
+        ensureCapacity(20);
+        if (value == Long.MIN_VALUE) {
+            byte[] min = Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(min, 0, buffer, position, min.length);
+            position += min.length;
+            return;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+        // Reverse digits in place
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte b = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = b;
+        }
+    }
+
+    /**
+     * Append a prefix followed by a number, such as a generated name.
+     */
+    public CopyTextEncoder append(byte[] encodedPrefix, long value) {
+        appendEncoded(encodedPrefix);
+        appendDigits(value);
+        return this;
+    }
+
+    /**
+     * Append random ASCII letters.
+     */
+    public CopyTextEncoder appendRandomAlpha(int length) {
+        separator();
+        ensureCapacity(length);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < length; i++) {
+            buffer[position++] = ALPHA[random.nextInt(ALPHA.length)];
+        }
+        return this;
+    }
+
+    /**
+     * Append a text value as escaped UTF-8, or NULL if null.
+     */
+    public CopyTextEncoder append(CharSequence value) {
+        if (value == null) {
+            return appendNull();
+        }
+        separator();
+        // Worst case is 3 bytes per char (surrogate pairs need 4 bytes for 2 chars)
+        ensureCapacity(value.length() * 3);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '\\':
+                        buffer[position++] = '\\';
+                        buffer[position++] = '\\';
+                        break;
+                    case '\t':
+                        buffer[position++] = '\\';
+                        buffer[position++] = 't';
+                        break;
+                    case '\n':
+                        buffer[position++] = '\\';
+                        buffer[position++] = 'n';
+                        break;
+                    case '\r':
+                        buffer[position++] = '\\';
+                        buffer[position++] = 'r';
+                        break;
+                    default:
+                        buffer[position++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xf0 | (cp >> 18));
+                buffer[position++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (cp & 0x3f));
+            } else {
+                buffer[position++] = (byte) (0xe0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return this;
+    }
+
+    public void endRow() {
+        ensureCapacity(1);
+        buffer[position++] = '\n';
+        rowStart = true;
+        rows++;
+    }
+
+    public boolean isFull() {
+        return position >= flushThreshold;
+    }
+
+    /**
+     * @return number of rows ended since last flush
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Write buffered rows to the COPY stream and reset the buffer.
+     *
+     * @return number of rows written
+     */
+    public long flushTo(CopyIn copyIn) throws SQLException {
+        if (position > 0) {
+            copyIn.writeToCopy(buffer, 0, position);
+        }
+        long written = rows;
+        reset();
+        return written;
+    }
+
+    public void reset() {
+        position = 0;
+        rows = 0;
+        rowStart = true;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, position, StandardCharsets.UTF_8);
+    }
+}
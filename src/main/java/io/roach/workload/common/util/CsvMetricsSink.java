@@ -0,0 +1,61 @@
+package io.roach.workload.common.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Writes one CSV row per context and interval. Retry rows share the same columns, with
+ * the metric name prefixed by 'retry:' and the latency columns left empty.
+ */
+public class CsvMetricsSink extends AbstractFileMetricsSink {
+    public CsvMetricsSink(Path path) throws IOException {
+        super(path);
+    }
+
+    @Override
+    protected String formatHeader() {
+        return "timestamp,metric,interval_ms,ops,ops_per_sec,ok,fail,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,mean_ms,delay_p99_ms,"
+                + "retries,attempts_avg,attempts_p99,backoff_ms,recovered,exhausted";
+    }
+
+    @Override
+    protected String formatRow(CallMetric.Interval interval) {
+        LatencyHistogram.Snapshot s = interval.getSnapshot();
+        return String.format(Locale.US, "%s,\"%s\",%d,%d,%.2f,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,,,,,,",
+                Instant.ofEpochMilli(interval.getTimestamp()),
+                interval.getName().replace("\"", "\"\""),
+                interval.getDurationNanos() / 1_000_000,
+                s.getTotalCount(),
+                interval.opsPerSec(),
+                interval.getCallSuccessful(),
+                interval.getCallFailed(),
+                s.valueAtPercentile(.5),
+                s.valueAtPercentile(.9),
+                s.valueAtPercentile(.99),
+                s.valueAtPercentile(.999),
+                s.maxValue(),
+                s.mean(),
+                interval.getDelaySnapshot().valueAtPercentile(.99));
+    }
+
+    @Override
+    protected String formatRetryRow(RetryMetric.Interval interval) {
+        return String.format(Locale.US, "%s,\"retry:%s\",%d,%d,,%d,%d,,,,,,,,%d,%.2f,%.0f,%.1f,%d,%d",
+                Instant.ofEpochMilli(interval.getTimestamp()),
+                interval.getName().replace("\"", "\"\""),
+                interval.getDurationNanos() / 1_000_000,
+                interval.getCalls(),
+                interval.getOutcomeCount(RetryMetric.Outcome.success)
+                        + interval.getOutcomeCount(RetryMetric.Outcome.recovered),
+                interval.getOutcomeCount(RetryMetric.Outcome.exhausted)
+                        + interval.getOutcomeCount(RetryMetric.Outcome.failed),
+                interval.getRetries(),
+                interval.attemptsMean(),
+                interval.attemptsAtPercentile(.99),
+                interval.getBackoffMillis(),
+                interval.getOutcomeCount(RetryMetric.Outcome.recovered),
+                interval.getOutcomeCount(RetryMetric.Outcome.exhausted));
+    }
+}
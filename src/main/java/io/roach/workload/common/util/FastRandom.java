@@ -0,0 +1,258 @@
+package io.roach.workload.common.util;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Per-thread random data generator based on {@link SplittableRandom}, for the hot paths
+ * of workers generating rows. Each thread gets its own generator split off a root, so
+ * there is no contention. Once seeded with {@link #setSeed(long)}, the same generators are
+ * split off between runs, but they're handed to threads in first-call order, so a given
+ * worker's sequence is only reproducible with a single worker. Workers needing their own
+ * reproducible sequence should create a generator with {@link #FastRandom(long)} instead,
+ * for example seeded by worker index.
+ * <p>
+ * Text values are picked from interned dictionaries and UUIDs are built from two raw
+ * longs, so that most methods don't allocate beyond the returned value itself.
+ */
+public final class FastRandom {
+    private static final char[] BASE64_URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    private static final String[] FIRST_NAMES = intern(RandomData.firstNames(), false);
+
+    private static final String[] LAST_NAMES = intern(RandomData.lastNames(), false);
+
+    private static final String[] CITIES = intern(RandomData.cities(), true);
+
+    private static final String[] STATES = intern(RandomData.states(), false);
+
+    private static final String[] STATE_CODES = intern(RandomData.stateCodes(), false);
+
+    private static final String[] COUNTRIES = intern(RandomData.countries(), false);
+
+    private static final Object rootLock = new Object();
+
+    private static SplittableRandom root = new SplittableRandom();
+
+    private static volatile int rootGeneration;
+
+    private static final ThreadLocal<FastRandom> threadLocal = ThreadLocal.withInitial(FastRandom::split);
+
+    private static String[] intern(List<String> words, boolean capitalize) {
+        String[] array = new String[words.size()];
+        for (int i = 0; i < array.length; i++) {
+            String word = words.get(i);
+            array[i] = (capitalize ? StringUtils.capitalize(word) : word).intern();
+        }
+        return array;
+    }
+
+    private static FastRandom split() {
+        synchronized (rootLock) {
+            return new FastRandom(root.split(), rootGeneration);
+        }
+    }
+
+    /**
+     * Re-seed the root generator. Threads pick up a new generator split off the root on
+     * their next call to {@link #current()}.
+     *
+     * @param seed the root seed
+     */
+    public static void setSeed(long seed) {
+        synchronized (rootLock) {
+            root = new SplittableRandom(seed);
+            rootGeneration++;
+        }
+    }
+
+    /**
+     * Revert to an unseeded root generator.
+     */
+    public static void clearSeed() {
+        synchronized (rootLock) {
+            root = new SplittableRandom();
+            rootGeneration++;
+        }
+    }
+
+    /**
+     * @return the generator of the calling thread
+     */
+    public static FastRandom current() {
+        FastRandom random = threadLocal.get();
+        if (random.generation != rootGeneration) {
+            random = split();
+            threadLocal.set(random);
+        }
+        return random;
+    }
+
+    private final SplittableRandom random;
+
+    private final int generation;
+
+    private final char[] chars = new char[64];
+
+    /**
+     * Create a standalone generator, typically owned by a single worker.
+     *
+     * @param seed the seed
+     */
+    public FastRandom(long seed) {
+        this(new SplittableRandom(seed), -1);
+    }
+
+    private FastRandom(SplittableRandom random, int generation) {
+        this.random = random;
+        this.generation = generation;
+    }
+
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    public int nextInt(int origin, int bound) {
+        return random.nextInt(origin, bound);
+    }
+
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    public long nextLong(long origin, long bound) {
+        return random.nextLong(origin, bound);
+    }
+
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    public boolean nextBoolean() {
+        return random.nextBoolean();
+    }
+
+    public <E> E select(E[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    public <E> E select(List<E> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    /**
+     * @return a random (version 4) UUID built from two longs without a secure random source
+     */
+    public UUID nextUUID() {
+        long msb = (random.nextLong() & 0xffff_ffff_ffff_0fffL) | 0x0000_0000_0000_4000L;
+        long lsb = (random.nextLong() & 0x3fff_ffff_ffff_ffffL) | 0x8000_0000_0000_0000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * @param lowCents inclusive lower bound in cents
+     * @param highCents exclusive upper bound in cents
+     * @return random amount in cents
+     */
+    public long nextCents(long lowCents, long highCents) {
+        return random.nextLong(lowCents, highCents);
+    }
+
+    public Money money(double low, double high, Currency currency) {
+        if (high <= low) {
+            throw new IllegalArgumentException("high<=low");
+        }
+        int scale = Math.max(0, currency.getDefaultFractionDigits());
+        long factor = (long) Math.pow(10, scale);
+        long cents = nextCents(Math.round(low * factor), Math.round(high * factor));
+        return Money.of(BigDecimal.valueOf(cents, scale), currency);
+    }
+
+    public String firstName() {
+        return select(FIRST_NAMES);
+    }
+
+    public String lastName() {
+        return select(LAST_NAMES);
+    }
+
+    public String city() {
+        return select(CITIES);
+    }
+
+    public String state() {
+        return select(STATES);
+    }
+
+    public String stateCode() {
+        return select(STATE_CODES);
+    }
+
+    public String country() {
+        return select(COUNTRIES);
+    }
+
+    public String zipCode() {
+        return digits(5);
+    }
+
+    public String email() {
+        return (firstName() + "." + lastName() + "@example.com")
+                .toLowerCase(Locale.ENGLISH)
+                .replace(' ', '.');
+    }
+
+    public String phoneNumber() {
+        char[] c = chars;
+        c[0] = '(';
+        c[1] = (char) ('1' + random.nextInt(9));
+        c[2] = (char) ('0' + random.nextInt(10));
+        c[3] = (char) ('0' + random.nextInt(10));
+        c[4] = ')';
+        c[5] = ' ';
+        c[6] = (char) ('1' + random.nextInt(9));
+        c[7] = (char) ('0' + random.nextInt(10));
+        c[8] = (char) ('0' + random.nextInt(10));
+        c[9] = '-';
+        for (int i = 10; i < 14; i++) {
+            c[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(c, 0, 14);
+    }
+
+    /**
+     * @param length number of digits, max 64
+     * @return random string of digits
+     */
+    public String digits(int length) {
+        char[] c = chars;
+        for (int i = 0; i < length; i++) {
+            c[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(c, 0, length);
+    }
+
+    /**
+     * @param length number of characters, max 64
+     * @return random string of url-safe base64 characters
+     */
+    public String word(int length) {
+        char[] c = chars;
+        long bits = 0;
+        for (int i = 0; i < length; i++) {
+            if (i % 10 == 0) {
+                bits = random.nextLong();
+            }
+            c[i] = BASE64_URL[(int) (bits & 63)];
+            bits >>>= 6;
+        }
+        return new String(c, 0, length);
+    }
+}
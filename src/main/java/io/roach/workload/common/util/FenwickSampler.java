@@ -0,0 +1,117 @@
+package io.roach.workload.common.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Weighted selection backed by a Fenwick (binary indexed) tree of weights, for weights
+ * that change over time such as account balances. Both selection and weight updates are
+ * O(log n). Access is synchronized, which is uncontended when owned by a single thread.
+ *
+ * @param <E> the item type
+ */
+public class FenwickSampler<E> implements WeightedSampler<E> {
+    public static <E extends WeightedItem> FenwickSampler<E> of(List<E> items) {
+        return new FenwickSampler<>(items, WeightedItem::getWeight);
+    }
+
+    private final List<E> items;
+
+    private final double[] weights;
+
+    private final double[] tree;
+
+    private final int highestPowerOfTwo;
+
+    public FenwickSampler(List<E> items, ToDoubleFunction<E> weightFunction) {
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("Empty collection");
+        }
+
+        final int n = items.size();
+        this.items = Collections.unmodifiableList(items);
+        this.weights = new double[n];
+        this.tree = new double[n + 1];
+        this.highestPowerOfTwo = Integer.highestOneBit(n);
+
+        // O(n) bulk construction
+        for (int i = 0; i < n; i++) {
+            weights[i] = Math.max(0, weightFunction.applyAsDouble(items.get(i)));
+            tree[i + 1] += weights[i];
+            int parent = (i + 1) + ((i + 1) & -(i + 1));
+            if (parent <= n) {
+                tree[parent] += tree[i + 1];
+            }
+        }
+    }
+
+    /**
+     * Adjust the weight of an item, clamped at zero.
+     *
+     * @param index the item index
+     * @param delta the weight delta
+     */
+    public synchronized void add(int index, double delta) {
+        set(index, weights[index] + delta);
+    }
+
+    /**
+     * Set the weight of an item, clamped at zero.
+     *
+     * @param index the item index
+     * @param weight the new weight
+     */
+    public synchronized void set(int index, double weight) {
+        double delta = Math.max(0, weight) - weights[index];
+        weights[index] += delta;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    public synchronized double getWeight(int index) {
+        return weights[index];
+    }
+
+    public synchronized double getTotalWeight() {
+        double sum = 0;
+        for (int i = tree.length - 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public synchronized int nextIndex() {
+        double totalWeight = getTotalWeight();
+        if (totalWeight <= 0) {
+            return ThreadLocalRandom.current().nextInt(weights.length);
+        }
+
+        double target = ThreadLocalRandom.current().nextDouble() * totalWeight;
+
+        // Descend the tree to find the smallest index with prefix sum > target
+        int pos = 0;
+        for (int step = highestPowerOfTwo; step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next < tree.length && tree[next] <= target) {
+                pos = next;
+                target -= tree[next];
+            }
+        }
+
+        // Guard against rounding landing on a zero weight tail
+        int index = Math.min(pos, weights.length - 1);
+        while (index > 0 && weights[index] <= 0) {
+            index--;
+        }
+        return index;
+    }
+
+    @Override
+    public List<E> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,80 @@
+package io.roach.workload.common.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes one JSON object per line for each context and interval, with a type attribute
+ * telling call metrics and retry metrics apart.
+ */
+public class JsonLinesMetricsSink extends AbstractFileMetricsSink {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public JsonLinesMetricsSink(Path path) throws IOException {
+        super(path);
+    }
+
+    @Override
+    protected String formatHeader() {
+        return null;
+    }
+
+    @Override
+    protected String formatRow(CallMetric.Interval interval) {
+        LatencyHistogram.Snapshot s = interval.getSnapshot();
+
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("type", "call");
+        row.put("timestamp", Instant.ofEpochMilli(interval.getTimestamp()).toString());
+        row.put("metric", interval.getName());
+        row.put("intervalMs", interval.getDurationNanos() / 1_000_000);
+        row.put("ops", s.getTotalCount());
+        row.put("opsPerSec", interval.opsPerSec());
+        row.put("ok", interval.getCallSuccessful());
+        row.put("fail", interval.getCallFailed());
+        row.put("p50", s.valueAtPercentile(.5));
+        row.put("p90", s.valueAtPercentile(.9));
+        row.put("p99", s.valueAtPercentile(.99));
+        row.put("p999", s.valueAtPercentile(.999));
+        row.put("max", s.maxValue());
+        row.put("mean", s.mean());
+        row.put("delayP99", interval.getDelaySnapshot().valueAtPercentile(.99));
+
+        return toJson(row);
+    }
+
+    @Override
+    protected String formatRetryRow(RetryMetric.Interval interval) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("type", "retry");
+        row.put("timestamp", Instant.ofEpochMilli(interval.getTimestamp()).toString());
+        row.put("metric", interval.getName());
+        row.put("intervalMs", interval.getDurationNanos() / 1_000_000);
+        row.put("calls", interval.getCalls());
+        row.put("retries", interval.getRetries());
+        row.put("attemptsAvg", interval.attemptsMean());
+        row.put("attemptsP99", interval.attemptsAtPercentile(.99));
+        row.put("attemptsMax", interval.attemptsMax());
+        row.put("backoffMs", interval.getBackoffMillis());
+        row.put("backoffP99", interval.getBackoffSnapshot().valueAtPercentile(.99));
+        for (RetryMetric.Outcome outcome : RetryMetric.Outcome.values()) {
+            row.put(outcome.name(), interval.getOutcomeCount(outcome));
+        }
+        return toJson(row);
+    }
+
+    private String toJson(Map<String, Object> row) {
+        try {
+            return objectMapper.writeValueAsString(row);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
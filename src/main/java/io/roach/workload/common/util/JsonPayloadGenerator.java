@@ -0,0 +1,141 @@
+package io.roach.workload.common.util;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Streaming JSON payload generator writing random user documents straight to a
+ * {@link JsonGenerator} backed by a reusable per-thread buffer, without building an
+ * intermediate tree. The payload size is controlled by the number of users, the number
+ * of addresses per user, the depth of a nested attribute object per user and an optional
+ * target size met by padding.
+ */
+public class JsonPayloadGenerator {
+    /**
+     * Callback writing a JSON value to a generator.
+     */
+    @FunctionalInterface
+    public interface JsonWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private static final ThreadLocal<CharArrayWriter> buffers = ThreadLocal.withInitial(() -> new CharArrayWriter(1024));
+
+    private static final int PADDING_WORD_LENGTH = 64;
+
+    /**
+     * Write a JSON value using the calling thread's buffer.
+     *
+     * @param writer the value writer
+     * @return the JSON text
+     */
+    public static String writeJson(JsonWriter writer) {
+        CharArrayWriter buffer = buffers.get();
+        buffer.reset();
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+            writer.write(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toString();
+    }
+
+    private final int items;
+
+    private final int nestedItems;
+
+    private final int depth;
+
+    private final int targetBytes;
+
+    /**
+     * @param items number of users
+     * @param nestedItems number of addresses per user
+     * @param depth depth of nested attribute objects per user (0 for none)
+     * @param targetBytes min payload size in bytes, padded if below (0 for no padding)
+     */
+    public JsonPayloadGenerator(int items, int nestedItems, int depth, int targetBytes) {
+        this.items = items;
+        this.nestedItems = nestedItems;
+        this.depth = depth;
+        this.targetBytes = targetBytes;
+    }
+
+    public String generate() {
+        final CharArrayWriter buffer = buffers.get();
+        return writeJson(generator -> {
+            FastRandom random = FastRandom.current();
+
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("users");
+            for (int i = 0; i < items; i++) {
+                writeUser(generator, random);
+            }
+            generator.writeEndArray();
+
+            if (targetBytes > 0) {
+                generator.flush();
+                if (buffer.size() < targetBytes) {
+                    generator.writeArrayFieldStart("padding");
+                    do {
+                        generator.writeString(random.word(PADDING_WORD_LENGTH));
+                        generator.flush();
+                    } while (buffer.size() < targetBytes);
+                    generator.writeEndArray();
+                }
+            }
+
+            generator.writeEndObject();
+        });
+    }
+
+    private void writeUser(JsonGenerator generator, FastRandom random) throws IOException {
+        String firstName = random.firstName();
+        String lastName = random.lastName();
+
+        generator.writeStartObject();
+        generator.writeStringField("email", random.email());
+        generator.writeStringField("firstName", firstName);
+        generator.writeStringField("lastName", lastName);
+        generator.writeStringField("telephone", random.phoneNumber());
+        generator.writeStringField("userName", firstName.toLowerCase(Locale.ENGLISH));
+
+        generator.writeArrayFieldStart("addresses");
+        for (int n = 0; n < nestedItems; n++) {
+            generator.writeStartObject();
+            generator.writeStringField("state", random.state());
+            generator.writeStringField("stateCode", random.stateCode());
+            generator.writeStringField("city", random.city());
+            generator.writeStringField("country", random.country());
+            generator.writeStringField("zipCode", random.zipCode());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+
+        if (depth > 0) {
+            generator.writeFieldName("attributes");
+            writeAttributes(generator, random, depth);
+        }
+
+        generator.writeEndObject();
+    }
+
+    private void writeAttributes(JsonGenerator generator, FastRandom random, int level) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("level", level);
+        generator.writeStringField("key", random.word(12));
+        generator.writeNumberField("score", random.nextInt(1000));
+        if (level > 1) {
+            generator.writeFieldName("child");
+            writeAttributes(generator, random, level - 1);
+        }
+        generator.writeEndObject();
+    }
+}
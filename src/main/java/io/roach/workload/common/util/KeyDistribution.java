@@ -0,0 +1,206 @@
+package io.roach.workload.common.util;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Key access distribution over a key space of indexes {@code [0, size)}, used to pick
+ * rows with a controllable amount of skew. All generators are thread-safe and
+ * allocation-free per call.
+ * <p>
+ * Supported expressions:
+ * <ul>
+ *     <li>uniform - all keys equally likely</li>
+ *     <li>zipf[:theta] - Zipfian with skew theta in (0,1), default 0.99</li>
+ *     <li>hotspot[:ops:keys] - fraction ops of accesses on the first fraction keys of the key space,
+ *     default 0.8:0.2</li>
+ *     <li>sequential - round-robin over all keys</li>
+ *     <li>latest[:theta] - Zipfian skewed towards the last (most recent) keys</li>
+ * </ul>
+ */
+public abstract class KeyDistribution {
+    public static final double DEFAULT_THETA = 0.99;
+
+    public static KeyDistribution parse(String expression, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Key space size must be > 0");
+        }
+
+        String[] parts = expression.trim().toLowerCase(Locale.ENGLISH).split(":");
+        switch (parts[0]) {
+            case "uniform":
+                return new Uniform(size);
+            case "zipf":
+            case "zipfian":
+                return new Zipfian(size, parts.length > 1 ? Double.parseDouble(parts[1]) : DEFAULT_THETA);
+            case "hotspot":
+                return new Hotspot(size,
+                        parts.length > 1 ? Double.parseDouble(parts[1]) : 0.8,
+                        parts.length > 2 ? Double.parseDouble(parts[2]) : 0.2);
+            case "sequential":
+                return new Sequential(size);
+            case "latest":
+                return new Latest(size, parts.length > 1 ? Double.parseDouble(parts[1]) : DEFAULT_THETA);
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown distribution (uniform|zipf:theta|hotspot:ops:keys|sequential|latest): "
+                                + expression);
+        }
+    }
+
+    protected final int size;
+
+    protected KeyDistribution(int size) {
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return next key index in range [0, size)
+     */
+    public abstract int nextIndex();
+
+    private static class Uniform extends KeyDistribution {
+        Uniform(int size) {
+            super(size);
+        }
+
+        @Override
+        public int nextIndex() {
+            return ThreadLocalRandom.current().nextInt(size);
+        }
+
+        @Override
+        public String toString() {
+            return "uniform";
+        }
+    }
+
+    /**
+     * Zipfian generator after Gray et al, "Quickly Generating Billion-Record Synthetic
+     * Databases", with O(n) setup and O(1) generation. Index 0 is the most popular key.
+     */
+    private static class Zipfian extends KeyDistribution {
+        private final double theta;
+
+        private final double alpha;
+
+        private final double eta;
+
+        private final double zetaN;
+
+        Zipfian(int size, double theta) {
+            super(size);
+            if (theta <= 0 || theta >= 1) {
+                throw new IllegalArgumentException("Zipfian theta must be in range (0,1): " + theta);
+            }
+            this.theta = theta;
+            this.zetaN = zeta(size, theta);
+            double zeta2 = zeta(Math.min(2, size), theta);
+            this.alpha = 1.0 / (1.0 - theta);
+            this.eta = size > 1
+                    ? (1 - Math.pow(2.0 / size, 1 - theta)) / (1 - zeta2 / zetaN)
+                    : 0;
+        }
+
+        private static double zeta(int n, double theta) {
+            double sum = 0;
+            for (int i = 1; i <= n; i++) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+
+        @Override
+        public int nextIndex() {
+            double u = ThreadLocalRandom.current().nextDouble();
+            double uz = u * zetaN;
+            if (uz < 1.0) {
+                return 0;
+            }
+            if (uz < 1.0 + Math.pow(0.5, theta)) {
+                return Math.min(1, size - 1);
+            }
+            int index = (int) (size * Math.pow(eta * u - eta + 1, alpha));
+            return Math.min(index, size - 1);
+        }
+
+        @Override
+        public String toString() {
+            return "zipf:" + theta;
+        }
+    }
+
+    private static class Hotspot extends KeyDistribution {
+        private final double hotOpsFraction;
+
+        private final double hotKeysFraction;
+
+        private final int hotKeys;
+
+        Hotspot(int size, double hotOpsFraction, double hotKeysFraction) {
+            super(size);
+            if (hotOpsFraction < 0 || hotOpsFraction > 1 || hotKeysFraction <= 0 || hotKeysFraction > 1) {
+                throw new IllegalArgumentException("Hotspot fractions must be in range [0,1]");
+            }
+            this.hotOpsFraction = hotOpsFraction;
+            this.hotKeysFraction = hotKeysFraction;
+            this.hotKeys = Math.max(1, (int) (size * hotKeysFraction));
+        }
+
+        @Override
+        public int nextIndex() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (hotKeys >= size || random.nextDouble() < hotOpsFraction) {
+                return random.nextInt(hotKeys);
+            }
+            return hotKeys + random.nextInt(size - hotKeys);
+        }
+
+        @Override
+        public String toString() {
+            return "hotspot:" + hotOpsFraction + ":" + hotKeysFraction;
+        }
+    }
+
+    private static class Sequential extends KeyDistribution {
+        private final AtomicLong counter = new AtomicLong();
+
+        Sequential(int size) {
+            super(size);
+        }
+
+        @Override
+        public int nextIndex() {
+            return (int) (counter.getAndIncrement() % size);
+        }
+
+        @Override
+        public String toString() {
+            return "sequential";
+        }
+    }
+
+    private static class Latest extends KeyDistribution {
+        private final Zipfian zipfian;
+
+        Latest(int size, double theta) {
+            super(size);
+            this.zipfian = new Zipfian(size, theta);
+        }
+
+        @Override
+        public int nextIndex() {
+            return size - 1 - zipfian.nextIndex();
+        }
+
+        @Override
+        public String toString() {
+            return "latest:" + zipfian.theta;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package io.roach.workload.common.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, log-linear latency histogram in the spirit of HdrHistogram. Values are recorded
+ * in microseconds into buckets with a relative precision of ~1.5% (64 linear sub-buckets per
+ * power of two). Recording never allocates or locks, it only increments a counter in one of
+ * several stripes selected by the calling thread to keep contention down.
+ * <p>
+ * Readers take cumulative {@link Snapshot}s and subtract a previous snapshot to get the
+ * distribution of an interval.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+
+    /**
+     * Highest trackable value in micros (~71 minutes), larger values are clamped.
+     */
+    public static final long HIGHEST_TRACKABLE_VALUE = (1L << 32) - 1;
+
+    private static final int BUCKET_COUNT = indexFor(HIGHEST_TRACKABLE_VALUE) + 1;
+
+    // Trailing slots in each stripe for count and sum
+    private static final int COUNT_SLOT = BUCKET_COUNT;
+
+    private static final int SUM_SLOT = BUCKET_COUNT + 1;
+
+    private static final int STRIPES = nextPowerOfTwo(Runtime.getRuntime().availableProcessors());
+
+    static int indexFor(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) Math.max(0, value);
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return shift * SUB_BUCKET_HALF_COUNT + subBucket;
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+        long subBucket = index - (long) shift * SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static int nextPowerOfTwo(int n) {
+        return Integer.highestOneBit(Math.max(1, n - 1)) << 1;
+    }
+
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(BUCKET_COUNT + 2);
+        }
+    }
+
+    /**
+     * Record a single value.
+     *
+     * @param micros the value in microseconds
+     */
+    public void record(long micros) {
+        long value = Math.min(Math.max(0, micros), HIGHEST_TRACKABLE_VALUE);
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+        stripe.incrementAndGet(indexFor(value));
+        stripe.incrementAndGet(COUNT_SLOT);
+        stripe.addAndGet(SUM_SLOT, value);
+    }
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    /**
+     * @return a cumulative point-in-time copy of all recorded values
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long totalCount = 0;
+        long totalSum = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] += stripe.get(i);
+            }
+            totalCount += stripe.get(COUNT_SLOT);
+            totalSum += stripe.get(SUM_SLOT);
+        }
+        return new Snapshot(counts, totalCount, totalSum);
+    }
+
+    public static Snapshot emptySnapshot() {
+        return new Snapshot(new long[BUCKET_COUNT], 0, 0);
+    }
+
+    /**
+     * Immutable histogram copy used for percentile calculations.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+
+        private final long totalCount;
+
+        private final long totalSum;
+
+        private Snapshot(long[] counts, long totalCount, long totalSum) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.totalSum = totalSum;
+        }
+
+        public Snapshot minus(Snapshot other) {
+            long[] delta = Arrays.copyOf(counts, counts.length);
+            for (int i = 0; i < delta.length; i++) {
+                delta[i] = Math.max(0, delta[i] - other.counts[i]);
+            }
+            return new Snapshot(delta, Math.max(0, totalCount - other.totalCount),
+                    Math.max(0, totalSum - other.totalSum));
+        }
+
+        public Snapshot plus(Snapshot other) {
+            long[] sum = Arrays.copyOf(counts, counts.length);
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += other.counts[i];
+            }
+            return new Snapshot(sum, totalCount + other.totalCount, totalSum + other.totalSum);
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * @param percentile percentile in range 0..1
+         * @return value at percentile in millis
+         */
+        public double valueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 1) {
+                throw new IllegalArgumentException(">=0 N <=1");
+            }
+            if (totalCount == 0) {
+                return 0;
+            }
+            long countAtPercentile = Math.max(1, (long) Math.ceil(percentile * totalCount));
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= countAtPercentile) {
+                    return highestEquivalentValue(i) / 1000.0;
+                }
+            }
+            return maxValue();
+        }
+
+        /**
+         * @return highest recorded value in millis
+         */
+        public double maxValue() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return highestEquivalentValue(i) / 1000.0;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * @return arithmetic mean in millis
+         */
+        public double mean() {
+            return totalCount > 0 ? (totalSum / (double) totalCount) / 1000.0 : 0;
+        }
+    }
+}
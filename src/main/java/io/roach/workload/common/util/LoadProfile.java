@@ -0,0 +1,162 @@
+package io.roach.workload.common.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Staged load profile such as {@code 10@1m,50@2m,100@5m}, where each stage is a
+ * level and a duration. A level is either a number of active workers or, with a rate
+ * suffix like {@code 500/s@1m}, an open-loop target rate. Stages are either all worker
+ * levels or all rate levels.
+ */
+public class LoadProfile {
+    /**
+     * Parse a load profile expression.
+     *
+     * @param expression comma separated list of level@duration
+     * @return the profile or null if expression is 'none'
+     */
+    public static LoadProfile parse(String expression) {
+        String e = expression.trim().toLowerCase(Locale.ENGLISH);
+        if ("none".equals(e) || e.isEmpty()) {
+            return null;
+        }
+
+        List<Stage> stages = new ArrayList<>();
+        boolean rateLevels = e.contains("/");
+
+        for (String token : e.split(",")) {
+            String[] parts = token.trim().split("@");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid stage (expected level@duration): " + token);
+            }
+            if (rateLevels != parts[0].contains("/")) {
+                throw new IllegalArgumentException("Mixed worker and rate levels in profile: " + expression);
+            }
+            double level = rateLevels
+                    ? Pacer.parseRate(parts[0])
+                    : Multiplier.parseInt(parts[0].toUpperCase(Locale.ENGLISH));
+            if (level <= 0) {
+                throw new IllegalArgumentException("Stage level must be > 0: " + token);
+            }
+            stages.add(new Stage(stages.size() + 1, level, DurationFormat.parseDuration(parts[1]), rateLevels));
+        }
+
+        return new LoadProfile(stages, rateLevels);
+    }
+
+    private final List<Stage> stages;
+
+    private final boolean rateLevels;
+
+    private volatile int currentStage;
+
+    private LoadProfile(List<Stage> stages, boolean rateLevels) {
+        this.stages = Collections.unmodifiableList(stages);
+        this.rateLevels = rateLevels;
+    }
+
+    public List<Stage> getStages() {
+        return stages;
+    }
+
+    /**
+     * @return true if stage levels are target rates (ops/s) rather than worker counts
+     */
+    public boolean isRateLevels() {
+        return rateLevels;
+    }
+
+    public Duration getTotalDuration() {
+        return stages.stream().map(Stage::getDuration).reduce(Duration.ZERO, Duration::plus);
+    }
+
+    /**
+     * @return the highest worker count of all stages, or 0 for rate levels
+     */
+    public int getMaxWorkers() {
+        return rateLevels ? 0 : (int) stages.stream().mapToDouble(Stage::getLevel).max().orElse(0);
+    }
+
+    public Stage currentStage() {
+        return stages.get(currentStage);
+    }
+
+    /**
+     * Move to the next stage.
+     *
+     * @return false if the current stage was the last one
+     */
+    public boolean advance() {
+        if (currentStage + 1 >= stages.size()) {
+            return false;
+        }
+        currentStage++;
+        return true;
+    }
+
+    /**
+     * Create a gate for the worker with given ordinal (1-based) which is only open while
+     * the current stage level covers the ordinal. For rate levels, the gate is always open.
+     *
+     * @param ordinal the worker ordinal
+     * @return the gate
+     */
+    public BooleanSupplier gate(int ordinal) {
+        if (rateLevels) {
+            return () -> true;
+        }
+        return () -> ordinal <= currentStage().getLevel();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        stages.forEach(stage -> {
+            if (sb.length() > 0) {
+                sb.append(",");
+            }
+            sb.append(stage.getLabel()).append(" for ").append(stage.getDuration());
+        });
+        return sb.toString();
+    }
+
+    public static class Stage {
+        private final int ordinal;
+
+        private final double level;
+
+        private final Duration duration;
+
+        private final boolean rate;
+
+        Stage(int ordinal, double level, Duration duration, boolean rate) {
+            this.ordinal = ordinal;
+            this.level = level;
+            this.duration = duration;
+            this.rate = rate;
+        }
+
+        public int getOrdinal() {
+            return ordinal;
+        }
+
+        public double getLevel() {
+            return level;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public String getLabel() {
+            return rate
+                    ? String.format(Locale.US, "%.0f/s", level)
+                    : String.format(Locale.US, "%.0f workers", level);
+        }
+    }
+}
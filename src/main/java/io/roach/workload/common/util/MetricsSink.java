@@ -0,0 +1,21 @@
+package io.roach.workload.common.util;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Consumer of per-interval call metrics, invoked once per sampling period by the
+ * metrics sampler thread. Implementations must not block the caller.
+ */
+public interface MetricsSink extends Closeable {
+    void accept(List<CallMetric.Interval> intervals);
+
+    /**
+     * Accept per-method retry metrics for the same sampling period, ignored by default.
+     */
+    default void acceptRetries(List<RetryMetric.Interval> intervals) {
+    }
+
+    @Override
+    void close();
+}
@@ -0,0 +1,113 @@
+package io.roach.workload.common.util;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop arrival scheduler that releases work at a fixed target rate, shared by all
+ * workers of a group. Each call to {@link #acquire()} claims the next slot on a nanosecond
+ * schedule and blocks until that slot is due. The claimed slot is the intended start time
+ * of the call, which is what latency should be measured from to correct for coordinated
+ * omission. If the workers fall behind the schedule, slots are in the past and calls are
+ * released immediately while the queueing delay grows.
+ */
+public class Pacer {
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Parse a rate expression such as {@code 5000/s}, {@code 1.5K/s}, {@code 600/m} or
+     * {@code 50} (per second).
+     *
+     * @param expression the rate expression
+     * @return the pacer or null if expression is 'none' or zero (closed-loop)
+     */
+    public static Pacer parse(String expression) {
+        double opsPerSec = parseRate(expression);
+        return opsPerSec > 0 ? new Pacer(opsPerSec) : null;
+    }
+
+    public static double parseRate(String expression) {
+        String e = expression.trim().toLowerCase(Locale.ENGLISH);
+        if ("none".equals(e) || e.isEmpty()) {
+            return 0;
+        }
+        TimeUnit unit = TimeUnit.SECONDS;
+        int idx = e.indexOf('/');
+        if (idx > 0) {
+            switch (e.substring(idx + 1)) {
+                case "s":
+                    unit = TimeUnit.SECONDS;
+                    break;
+                case "m":
+                    unit = TimeUnit.MINUTES;
+                    break;
+                case "h":
+                    unit = TimeUnit.HOURS;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid rate unit: " + expression);
+            }
+            e = e.substring(0, idx);
+        }
+        return Multiplier.parseDouble(e.toUpperCase(Locale.ENGLISH)) / unit.toSeconds(1);
+    }
+
+    private final AtomicLong nextSlot = new AtomicLong();
+
+    private volatile long intervalNanos;
+
+    public Pacer(double opsPerSec) {
+        setRate(opsPerSec);
+    }
+
+    /**
+     * Change the target rate, effective from now on.
+     *
+     * @param opsPerSec the new rate in operations per second
+     */
+    public void setRate(double opsPerSec) {
+        if (opsPerSec <= 0) {
+            throw new IllegalArgumentException("Rate must be > 0");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / opsPerSec));
+        this.nextSlot.set(0);
+    }
+
+    public double getRate() {
+        return TimeUnit.SECONDS.toNanos(1) / (double) intervalNanos;
+    }
+
+    /**
+     * Claim the next slot and wait until it's due.
+     *
+     * @return the intended start time in {@link System#nanoTime()} units
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public long acquire() throws InterruptedException {
+        long slot;
+        long now = System.nanoTime();
+        long interval = intervalNanos;
+        for (; ; ) {
+            long next = nextSlot.get();
+            slot = next == 0 ? now : next;
+            if (nextSlot.compareAndSet(next, slot + interval)) {
+                break;
+            }
+        }
+
+        long remaining;
+        while ((remaining = slot - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.yield();
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,107 @@
+package io.roach.workload.common.util;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Picks a connection pool size from a series of short probes at increasing sizes. The
+ * recommended size is the one with the highest throughput among the probes meeting the
+ * p99 latency target, preferring the smallest pool within a few percent of that throughput
+ * since extra connections past the knee only add contention on the database side.
+ */
+public class PoolSizeAdvisor {
+    private static final String HEADER_PATTERN = "%-10s %10s %10s %10s %10s %5s";
+
+    private static final String ROW_PATTERN = "%-10d %10.1f %10.2f %10.2f %10.1f %5s";
+
+    /**
+     * Throughput within this fraction of the best counts as equal.
+     */
+    public static final double THROUGHPUT_TOLERANCE = 0.05;
+
+    private static String separator(int len) {
+        return new String(new char[len]).replace('\0', '-');
+    }
+
+    public static class Probe {
+        private final int poolSize;
+
+        private final double opsPerSec;
+
+        private final double p50Millis;
+
+        private final double p99Millis;
+
+        private final double avgThreadsAwaiting;
+
+        public Probe(int poolSize, double opsPerSec, double p50Millis, double p99Millis, double avgThreadsAwaiting) {
+            this.poolSize = poolSize;
+            this.opsPerSec = opsPerSec;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+            this.avgThreadsAwaiting = avgThreadsAwaiting;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public double getOpsPerSec() {
+            return opsPerSec;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public double getAvgThreadsAwaiting() {
+            return avgThreadsAwaiting;
+        }
+    }
+
+    /**
+     * @param probes the probe results
+     * @param targetP99Millis the p99 latency target in millis
+     * @return the recommended probe or null if no probe met the latency target
+     */
+    public static Probe recommend(List<Probe> probes, double targetP99Millis) {
+        double bestOpsPerSec = 0;
+        for (Probe probe : probes) {
+            if (probe.p99Millis <= targetP99Millis) {
+                bestOpsPerSec = Math.max(bestOpsPerSec, probe.opsPerSec);
+            }
+        }
+        if (bestOpsPerSec <= 0) {
+            return null;
+        }
+
+        Probe best = null;
+        for (Probe probe : probes) {
+            if (probe.p99Millis <= targetP99Millis
+                    && probe.opsPerSec >= bestOpsPerSec * (1 - THROUGHPUT_TOLERANCE)
+                    && (best == null || probe.poolSize < best.poolSize)) {
+                best = probe;
+            }
+        }
+        return best;
+    }
+
+    public static void prettyPrint(List<Probe> probes, Probe recommended, Consumer<String> sink) {
+        sink.accept(String.format(Locale.US, HEADER_PATTERN,
+                "pool size", "op/s", "p50(ms)", "p99(ms)", "awaiting", "best"));
+        sink.accept(String.format(Locale.US, HEADER_PATTERN,
+                separator(10), separator(10), separator(10), separator(10), separator(10), separator(5)));
+        probes.forEach(probe -> sink.accept(String.format(Locale.US, ROW_PATTERN,
+                probe.poolSize,
+                probe.opsPerSec,
+                probe.p50Millis,
+                probe.p99Millis,
+                probe.avgThreadsAwaiting,
+                probe == recommended ? "<--" : "")));
+    }
+}
@@ -9,31 +9,15 @@ import java.math.RoundingMode;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.util.StringUtils;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-
 public class RandomData {
     private static final Logger logger = LoggerFactory.getLogger(RandomData.class);
 
-    private static final ObjectMapper objectMapper = new ObjectMapper()
-            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
-            .enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)
-            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
-    private static final ThreadLocalRandom random = ThreadLocalRandom.current();
-
     private static final List<String> firstNames = new ArrayList<>();
 
     private static final List<String> lastNames = new ArrayList<>();
@@ -72,6 +56,34 @@ public class RandomData {
         }
     }
 
+    private static ThreadLocalRandom random() {
+        return ThreadLocalRandom.current();
+    }
+
+    static List<String> firstNames() {
+        return Collections.unmodifiableList(firstNames);
+    }
+
+    static List<String> lastNames() {
+        return Collections.unmodifiableList(lastNames);
+    }
+
+    static List<String> cities() {
+        return Collections.unmodifiableList(cities);
+    }
+
+    static List<String> states() {
+        return Collections.unmodifiableList(states);
+    }
+
+    static List<String> stateCodes() {
+        return Collections.unmodifiableList(stateCodes);
+    }
+
+    static List<String> countries() {
+        return Collections.unmodifiableList(countries);
+    }
+
     private static List<String> readLines(String path) {
         try (InputStream resource = new ClassPathResource(path).getInputStream();
              BufferedReader reader = new BufferedReader(new InputStreamReader(resource))) {
@@ -90,27 +102,27 @@ public class RandomData {
         if (high <= low) {
             throw new IllegalArgumentException("high<=low");
         }
-        BigDecimal a = BigDecimal.valueOf(Math.max(low, random.nextDouble() * high))
+        BigDecimal a = BigDecimal.valueOf(Math.max(low, random().nextDouble() * high))
                 .setScale(currency.getDefaultFractionDigits(), RoundingMode.HALF_UP);
         return Money.of(a, currency);
     }
 
     public static <T extends Enum<?>> T selectRandom(Class<T> clazz) {
-        int x = random.nextInt(clazz.getEnumConstants().length);
+        int x = random().nextInt(clazz.getEnumConstants().length);
         return clazz.getEnumConstants()[x];
     }
 
     public static <E> E selectRandom(List<E> collection) {
-        return collection.get(random.nextInt(collection.size()));
+        return collection.get(random().nextInt(collection.size()));
     }
 
     public static <K> K selectRandom(Set<K> set) {
         Object[] keys = set.toArray();
-        return (K) keys[random.nextInt(keys.length)];
+        return (K) keys[random().nextInt(keys.length)];
     }
 
     public static <E> E selectRandom(E[] collection) {
-        return collection[random.nextInt(collection.length)];
+        return collection[random().nextInt(collection.length)];
     }
 
     public static <E> Collection<E> selectRandomUnique(List<E> collection, int count) {
@@ -144,7 +156,7 @@ public class RandomData {
             throw new IllegalArgumentException("Empty collection");
         }
         double totalWeight = items.stream().mapToDouble(WeightedItem::getWeight).sum();
-        double randomWeight = random.nextDouble() * totalWeight;
+        double randomWeight = random().nextDouble() * totalWeight;
         double cumulativeWeight = 0;
 
         for (E item : items) {
@@ -166,7 +178,7 @@ public class RandomData {
         }
 
         double totalWeight = weights.stream().mapToDouble(w -> w).sum();
-        double randomWeight = random.nextDouble() * totalWeight;
+        double randomWeight = random().nextDouble() * totalWeight;
         double cumulativeWeight = 0;
 
         int idx = 0;
@@ -181,43 +193,15 @@ public class RandomData {
     }
 
     public static String randomUserJson(int items, int nestedItems) {
-        ObjectNode root = objectMapper.createObjectNode();
-        ArrayNode users = root.putArray("users");
-
-        IntStream.range(0, items).forEach(value -> {
-            ObjectNode u = users.addObject();
-            u.put("email", randomEmail());
-            u.put("firstName", randomFirstName());
-            u.put("lastName", randomLastName());
-            u.put("telephone", randomPhoneNumber());
-            u.put("userName", randomFirstName().toLowerCase());
-
-            ArrayNode addr = u.putArray("addresses");
-            IntStream.range(0, nestedItems).forEach(n -> {
-                ObjectNode a = addr.addObject();
-                a.put("state", randomState());
-                a.put("stateCode", randomStateCode());
-                a.put("city", randomCity());
-                a.put("country", randomCountry());
-                a.put("zipCode", randomZipCode());
-            });
-
-            users.add(u);
-        });
-
-        try {
-            return objectMapper.writeValueAsString(root);
-        } catch (JsonProcessingException e) {
-            throw new IllegalStateException(e);
-        }
+        return new JsonPayloadGenerator(items, nestedItems, 0, 0).generate();
     }
 
     public static int randomInt(int start, int end) {
-        return Math.max(start, random.nextInt() * end);
+        return Math.max(start, random().nextInt() * end);
     }
 
     public static double randomDouble(double start, int end) {
-        return Math.max(start, random.nextDouble() * end);
+        return Math.max(start, random().nextDouble() * end);
     }
 
     public static String randomFirstName() {
@@ -235,18 +219,18 @@ public class RandomData {
     public static String randomPhoneNumber() {
         StringBuilder sb = new StringBuilder()
                 .append("(")
-                .append(random.nextInt(9) + 1);
+                .append(random().nextInt(9) + 1);
         for (int i = 0; i < 2; i++) {
-            sb.append(random.nextInt(10));
+            sb.append(random().nextInt(10));
         }
         sb.append(") ")
-                .append(random.nextInt(9) + 1);
+                .append(random().nextInt(9) + 1);
         for (int i = 0; i < 2; i++) {
-            sb.append(random.nextInt(10));
+            sb.append(random().nextInt(10));
         }
         sb.append("-");
         for (int i = 0; i < 4; i++) {
-            sb.append(random.nextInt(10));
+            sb.append(random().nextInt(10));
         }
         return sb.toString();
     }
@@ -270,7 +254,7 @@ public class RandomData {
     public static String randomZipCode() {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < 5; i++) {
-            sb.append(random.nextInt(10));
+            sb.append(random().nextInt(10));
         }
         return sb.toString();
     }
@@ -289,7 +273,7 @@ public class RandomData {
 
     public static String randomWord(int min) {
         byte[] buffer = new byte[min];
-        random.nextBytes(buffer);
+        random().nextBytes(buffer);
         return encoder.encodeToString(buffer);
     }
 
@@ -347,7 +331,7 @@ public class RandomData {
         public String getParagraphs(int min, int max) {
             StringBuilder sb = new StringBuilder();
             for (int j = 0; j < getCount(min, max); j++) {
-                for (int i = 0; i < random.nextInt(5) + 2; i++) {
+                for (int i = 0; i < random().nextInt(5) + 2; i++) {
                     sb.append(StringUtils.capitalize(getWords(1, false)))
                             .append(getWords(getCount(2, 20), false))
                             .append(". ");
@@ -362,7 +346,7 @@ public class RandomData {
             if (max < min) {
                 max = min;
             }
-            return max != min ? random.nextInt(max - min) + min : min;
+            return max != min ? random().nextInt(max - min) + min : min;
         }
 
         private String getWords(int count, boolean capitalize) {
@@ -370,7 +354,7 @@ public class RandomData {
 
             int wordCount = 0;
             while (wordCount < count) {
-                String word = lorem.get(random.nextInt(lorem.size()));
+                String word = lorem.get(random().nextInt(lorem.size()));
                 if (capitalize) {
                     if (wordCount == 0 || word.length() > 3) {
                         word = StringUtils.capitalize(word);
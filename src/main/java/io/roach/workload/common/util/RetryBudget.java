@@ -0,0 +1,240 @@
+package io.roach.workload.common.util;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide retry budget shared by all workers, combining a token bucket that limits
+ * retries to a fraction of successful calls with a circuit breaker that sheds calls when
+ * the retry ratio of the last window exceeds a threshold. All state is updated lock-free.
+ * <p>
+ * Each retry withdraws one token and each successful call deposits a fraction of a token,
+ * so that a sustained retry rate above that fraction drains the bucket and further retries
+ * are denied. The circuit opens for a cool-down period when more than the threshold ratio
+ * of calls in a window were retries, and closes again after the first window below it.
+ */
+public class RetryBudget {
+    public enum State {
+        closed,
+        open,
+        half_open
+    }
+
+    private static final long MILLIS_PER_TOKEN = 1000;
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Decorrelated jitter backoff, a random value between base and 3x the previous
+     * backoff, capped at max.
+     *
+     * @param baseMillis the base (minimum) backoff
+     * @param maxMillis the max backoff
+     * @param previousMillis the previous backoff or 0 for first retry
+     * @return next backoff in millis
+     */
+    public static long decorrelatedJitter(long baseMillis, long maxMillis, long previousMillis) {
+        long upper = Math.max(baseMillis, previousMillis * 3);
+        long backoff = upper > baseMillis
+                ? ThreadLocalRandom.current().nextLong(baseMillis, upper + 1)
+                : baseMillis;
+        return Math.min(backoff, maxMillis);
+    }
+
+    private final long capacity;
+
+    private final long depositPerSuccess;
+
+    private final double circuitThreshold;
+
+    private final int circuitMinCalls;
+
+    private final long openNanos;
+
+    private final AtomicLong tokens;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    private final LongAdder windowCalls = new LongAdder();
+
+    private final LongAdder windowRetries = new LongAdder();
+
+    private final AtomicLong openUntil = new AtomicLong();
+
+    private final LongAdder retriesGranted = new LongAdder();
+
+    private final LongAdder retriesDenied = new LongAdder();
+
+    private final LongAdder callsShed = new LongAdder();
+
+    private final LongAdder circuitOpened = new LongAdder();
+
+    private volatile double lastRetryRatio;
+
+    /**
+     * @param capacity max number of retry tokens, zero or negative disables the budget
+     * @param tokenRatio number of tokens deposited per successful call
+     * @param circuitThreshold retry ratio (retries / calls) in range (0,1] above which the
+     * circuit opens, zero or negative disables the circuit breaker
+     * @param circuitMinCalls min number of calls in a window to evaluate the ratio
+     * @param openDuration time to shed calls once open
+     */
+    public RetryBudget(int capacity, double tokenRatio, double circuitThreshold, int circuitMinCalls,
+                       Duration openDuration) {
+        this.capacity = capacity * MILLIS_PER_TOKEN;
+        this.depositPerSuccess = Math.max(1, (long) (tokenRatio * MILLIS_PER_TOKEN));
+        this.circuitThreshold = circuitThreshold;
+        this.circuitMinCalls = circuitMinCalls;
+        this.openNanos = openDuration.toNanos();
+        this.tokens = new AtomicLong(this.capacity);
+    }
+
+    public boolean isBudgetEnabled() {
+        return capacity > 0;
+    }
+
+    public boolean isCircuitEnabled() {
+        return circuitThreshold > 0;
+    }
+
+    /**
+     * Signal the start of a call.
+     *
+     * @return false if the circuit is open and the call should be shed
+     */
+    public boolean tryCall() {
+        rotateWindow();
+        long until = openUntil.get();
+        if (until != 0 && System.nanoTime() - until < 0) {
+            callsShed.increment();
+            return false;
+        }
+        windowCalls.increment();
+        return true;
+    }
+
+    /**
+     * Withdraw a token for a retry.
+     *
+     * @return false if the budget is exhausted and the call should give up
+     */
+    public boolean tryRetry() {
+        windowRetries.increment();
+        if (!isBudgetEnabled()) {
+            retriesGranted.increment();
+            return true;
+        }
+        long current;
+        do {
+            current = tokens.get();
+            if (current < MILLIS_PER_TOKEN) {
+                retriesDenied.increment();
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - MILLIS_PER_TOKEN));
+        retriesGranted.increment();
+        return true;
+    }
+
+    /**
+     * Deposit a fraction of a token for a successful call.
+     */
+    public void onSuccess() {
+        if (!isBudgetEnabled()) {
+            return;
+        }
+        long current;
+        do {
+            current = tokens.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!tokens.compareAndSet(current, Math.min(capacity, current + depositPerSuccess)));
+    }
+
+    private void rotateWindow() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start < WINDOW_NANOS || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+
+        long calls = windowCalls.sumThenReset();
+        long retries = windowRetries.sumThenReset();
+        double ratio = calls > 0 ? retries / (double) calls : 0;
+        this.lastRetryRatio = ratio;
+
+        if (!isCircuitEnabled()) {
+            return;
+        }
+
+        long until = openUntil.get();
+        if (calls >= circuitMinCalls && ratio > circuitThreshold) {
+            if (until == 0 || now - until >= 0) {
+                openUntil.set(now + openNanos);
+                circuitOpened.increment();
+            }
+        } else if (until != 0 && now - until >= 0) {
+            openUntil.set(0);
+        }
+    }
+
+    public State getState() {
+        long until = openUntil.get();
+        if (until == 0) {
+            return State.closed;
+        }
+        return System.nanoTime() - until < 0 ? State.open : State.half_open;
+    }
+
+    /**
+     * @return time left until an open circuit turns half-open, or 0 if not open
+     */
+    public long getOpenMillisRemaining() {
+        long until = openUntil.get();
+        if (until == 0) {
+            return 0;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(until - System.nanoTime()));
+    }
+
+    public double getAvailableTokens() {
+        return tokens.get() / (double) MILLIS_PER_TOKEN;
+    }
+
+    public double getCapacity() {
+        return capacity / (double) MILLIS_PER_TOKEN;
+    }
+
+    /**
+     * @return retry ratio of the last closed window
+     */
+    public double getLastRetryRatio() {
+        return lastRetryRatio;
+    }
+
+    public long getRetriesGranted() {
+        return retriesGranted.sum();
+    }
+
+    public long getRetriesDenied() {
+        return retriesDenied.sum();
+    }
+
+    public long getCallsShed() {
+        return callsShed.sum();
+    }
+
+    public long getCircuitOpened() {
+        return circuitOpened.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("state: %s, tokens: %.1f/%.0f, retry ratio: %.2f",
+                getState(), getAvailableTokens(), getCapacity(), getLastRetryRatio());
+    }
+}
@@ -0,0 +1,337 @@
+package io.roach.workload.common.util;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Per-method transaction retry statistics, recorded lock-free by the retry advice: attempts
+ * per call, backoff time spent sleeping and the final outcome of each call. Sampled in
+ * intervals the same way as {@link CallMetric}.
+ */
+public class RetryMetric {
+    private static String separator(int len) {
+        return new String(new char[len]).replace('\0', '-');
+    }
+
+    private static final String HEADER_PATTERN = "%-40s %9s %9s %9s %9s %10s %10s %10s %11s %11s %11s";
+
+    private static final String ROW_PATTERN = "%-40s %9.2f %9.0f %9d %9.2f %10.0f %10.2f %10.2f %,11d %,11d %,11d";
+
+    /**
+     * Attempts above this count share the last histogram bucket.
+     */
+    public static final int MAX_TRACKED_ATTEMPTS = 32;
+
+    public enum Outcome {
+        /**
+         * Succeeded on first attempt
+         */
+        success,
+        /**
+         * Succeeded after one or more retries
+         */
+        recovered,
+        /**
+         * Retry attempts exhausted
+         */
+        exhausted,
+        /**
+         * Failed on a non-transient error
+         */
+        failed
+    }
+
+    private final Map<String, Context> metrics = new ConcurrentSkipListMap<>();
+
+    /**
+     * Get or create the context of a method.
+     *
+     * @param method the method signature
+     * @return the context
+     */
+    public Context add(String method) {
+        return metrics.computeIfAbsent(method, Context::new);
+    }
+
+    public void clear() {
+        metrics.clear();
+    }
+
+    public boolean isEmpty() {
+        return metrics.isEmpty();
+    }
+
+    /**
+     * Close the current measurement interval of all contexts. Expected to be called once
+     * per reporting period by a single thread.
+     */
+    public void sample() {
+        metrics.values().forEach(Context::sample);
+    }
+
+    /**
+     * @return the last closed measurement interval of all contexts
+     */
+    public List<Interval> getIntervals() {
+        List<Interval> intervals = new ArrayList<>(metrics.size());
+        metrics.values().forEach(context -> intervals.add(context.interval));
+        return intervals;
+    }
+
+    public String prettyPrintHeader() {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        pw.printf(Locale.US,
+                HEADER_PATTERN,
+                "retries",
+                "att(avg)",
+                "att(p99)",
+                "att(max)",
+                "retry/s",
+                "backoff(ms)",
+                "bo-p99(ms)",
+                "bo-max(ms)",
+                "recovered",
+                "exhausted",
+                "failed"
+        );
+        pw.println();
+        pw.printf(Locale.US,
+                HEADER_PATTERN,
+                separator(40),
+                separator(9),
+                separator(9),
+                separator(9),
+                separator(9),
+                separator(10),
+                separator(10),
+                separator(10),
+                separator(11),
+                separator(11),
+                separator(11)
+        );
+        return sw.toString();
+    }
+
+    public void prettyPrintBody(Consumer<String> sink) {
+        metrics.values().forEach(context -> sink.accept(context.formatStats()));
+    }
+
+    public static class Context {
+        private final String name;
+
+        private final AtomicLongArray attempts = new AtomicLongArray(MAX_TRACKED_ATTEMPTS + 1);
+
+        private final LatencyHistogram backoffHistogram = new LatencyHistogram();
+
+        private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+
+        private long[] lastAttempts = new long[MAX_TRACKED_ATTEMPTS + 1];
+
+        private LatencyHistogram.Snapshot lastBackoffSnapshot = LatencyHistogram.emptySnapshot();
+
+        private long lastSampleTime;
+
+        private volatile Interval interval;
+
+        private Context(String name) {
+            this.name = name;
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = new LongAdder();
+            }
+            this.lastSampleTime = System.nanoTime();
+            this.interval = new Interval(name, System.currentTimeMillis(), 0,
+                    new long[MAX_TRACKED_ATTEMPTS + 1], LatencyHistogram.emptySnapshot(), new long[outcomes.length]);
+        }
+
+        /**
+         * Record a backoff sleep before a retry.
+         *
+         * @param backoffMillis the backoff time in millis
+         */
+        public void recordBackoff(long backoffMillis) {
+            backoffHistogram.record(backoffMillis * 1000);
+        }
+
+        /**
+         * Record the completion of a call.
+         *
+         * @param numCalls the total number of attempts
+         * @param outcome the final outcome
+         */
+        public void recordOutcome(int numCalls, Outcome outcome) {
+            attempts.incrementAndGet(Math.min(Math.max(numCalls, 0), MAX_TRACKED_ATTEMPTS));
+            outcomes[outcome.ordinal()].increment();
+        }
+
+        public long getOutcomeCount(Outcome outcome) {
+            return outcomes[outcome.ordinal()].sum();
+        }
+
+        private void sample() {
+            long now = System.nanoTime();
+            long[] currentAttempts = new long[attempts.length()];
+            long[] deltaAttempts = new long[attempts.length()];
+            for (int i = 0; i < currentAttempts.length; i++) {
+                currentAttempts[i] = attempts.get(i);
+                deltaAttempts[i] = currentAttempts[i] - lastAttempts[i];
+            }
+            long[] currentOutcomes = new long[outcomes.length];
+            for (int i = 0; i < outcomes.length; i++) {
+                currentOutcomes[i] = outcomes[i].sum();
+            }
+            LatencyHistogram.Snapshot currentBackoff = backoffHistogram.snapshot();
+
+            this.interval = new Interval(name, System.currentTimeMillis(), now - lastSampleTime,
+                    deltaAttempts, currentBackoff.minus(lastBackoffSnapshot), currentOutcomes);
+            this.lastAttempts = currentAttempts;
+            this.lastBackoffSnapshot = currentBackoff;
+            this.lastSampleTime = now;
+        }
+
+        private String formatStats() {
+            final Interval iv = this.interval;
+            return String.format(Locale.US,
+                    ROW_PATTERN,
+                    name,
+                    iv.attemptsMean(),
+                    iv.attemptsAtPercentile(.99),
+                    iv.attemptsMax(),
+                    iv.retriesPerSec(),
+                    iv.getBackoffMillis(),
+                    iv.backoffSnapshot.valueAtPercentile(.99),
+                    iv.backoffSnapshot.maxValue(),
+                    iv.getOutcomeCount(Outcome.recovered),
+                    iv.getOutcomeCount(Outcome.exhausted),
+                    iv.getOutcomeCount(Outcome.failed)
+            );
+        }
+    }
+
+    /**
+     * Retry measurements of one method for one sampling interval. Attempt and backoff
+     * distributions cover the interval only, outcome counts are cumulative.
+     */
+    public static class Interval {
+        private final String name;
+
+        private final long timestamp;
+
+        private final long durationNanos;
+
+        private final long[] attempts;
+
+        private final LatencyHistogram.Snapshot backoffSnapshot;
+
+        private final long[] outcomes;
+
+        private Interval(String name, long timestamp, long durationNanos, long[] attempts,
+                         LatencyHistogram.Snapshot backoffSnapshot, long[] outcomes) {
+            this.name = name;
+            this.timestamp = timestamp;
+            this.durationNanos = durationNanos;
+            this.attempts = attempts;
+            this.backoffSnapshot = backoffSnapshot;
+            this.outcomes = outcomes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * @return number of completed calls in the interval
+         */
+        public long getCalls() {
+            long sum = 0;
+            for (long count : attempts) {
+                sum += count;
+            }
+            return sum;
+        }
+
+        /**
+         * @return number of retries (backoffs) in the interval
+         */
+        public long getRetries() {
+            return backoffSnapshot.getTotalCount();
+        }
+
+        /**
+         * @return total backoff time in the interval in millis
+         */
+        public double getBackoffMillis() {
+            return backoffSnapshot.mean() * backoffSnapshot.getTotalCount();
+        }
+
+        public LatencyHistogram.Snapshot getBackoffSnapshot() {
+            return backoffSnapshot;
+        }
+
+        /**
+         * @return cumulative number of calls with given outcome
+         */
+        public long getOutcomeCount(Outcome outcome) {
+            return outcomes[outcome.ordinal()];
+        }
+
+        public double attemptsMean() {
+            long calls = 0;
+            long sum = 0;
+            for (int i = 0; i < attempts.length; i++) {
+                calls += attempts[i];
+                sum += attempts[i] * i;
+            }
+            return calls > 0 ? sum / (double) calls : 0;
+        }
+
+        /**
+         * @param percentile percentile in range 0..1
+         * @return number of attempts at percentile
+         */
+        public double attemptsAtPercentile(double percentile) {
+            long calls = getCalls();
+            if (calls == 0) {
+                return 0;
+            }
+            long countAtPercentile = Math.max(1, (long) Math.ceil(percentile * calls));
+            long cumulative = 0;
+            for (int i = 0; i < attempts.length; i++) {
+                cumulative += attempts[i];
+                if (cumulative >= countAtPercentile) {
+                    return i;
+                }
+            }
+            return attemptsMax();
+        }
+
+        public int attemptsMax() {
+            for (int i = attempts.length - 1; i >= 0; i--) {
+                if (attempts[i] > 0) {
+                    return i;
+                }
+            }
+            return 0;
+        }
+
+        public double retriesPerSec() {
+            return durationNanos > 0 ? getRetries() / (durationNanos / 1_000_000_000.0) : 0;
+        }
+    }
+}
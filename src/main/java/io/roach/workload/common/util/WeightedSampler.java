@@ -0,0 +1,21 @@
+package io.roach.workload.common.util;
+
+import java.util.List;
+
+/**
+ * Weighted random selection over a fixed list of items, without allocation per call.
+ *
+ * @param <E> the item type
+ */
+public interface WeightedSampler<E> {
+    /**
+     * @return index of a random item with probability proportional to its weight
+     */
+    int nextIndex();
+
+    List<E> getItems();
+
+    default E next() {
+        return getItems().get(nextIndex());
+    }
+}
@@ -5,13 +5,11 @@ import java.sql.SQLException;
 import java.sql.Types;
 import java.time.Duration;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.shell.standard.ShellComponent;
 import org.springframework.shell.standard.ShellMethod;
 import org.springframework.shell.standard.ShellOption;
@@ -20,8 +18,11 @@ import io.roach.workload.Profiles;
 import io.roach.workload.common.AbstractWorkload;
 import io.roach.workload.common.util.BoundedExecutor;
 import io.roach.workload.common.util.DurationFormat;
+import io.roach.workload.common.util.FastRandom;
+import io.roach.workload.common.util.JsonPayloadGenerator;
+import io.roach.workload.common.util.LoadProfile;
 import io.roach.workload.common.util.Multiplier;
-import io.roach.workload.common.util.RandomData;
+import io.roach.workload.common.util.Pacer;
 import io.roach.workload.events.model.OutboxEvent;
 
 @Profiles.Events
@@ -30,9 +31,6 @@ public class EventsWorkload extends AbstractWorkload {
     @Autowired
     private BoundedExecutor boundedExecutor;
 
-    @Autowired
-    private JdbcTemplate jdbcTemplate;
-
     @Override
     public String prompt() {
         return "events:$ ";
@@ -56,38 +54,71 @@ public class EventsWorkload extends AbstractWorkload {
             @ShellOption(help = "number of threads per partition", defaultValue = "1") int threads,
             @ShellOption(help = "number of partitions (tables)", defaultValue = "10") int partitions,
             @ShellOption(help = "number of JSON payload items (0 disables)", defaultValue = "1") int payloadItems,
+            @ShellOption(help = "number of addresses per JSON payload item", defaultValue = "2") int payloadAddresses,
+            @ShellOption(help = "depth of nested JSON payload objects per item", defaultValue = "0") int payloadDepth,
+            @ShellOption(help = "min JSON payload size, padded if below (expression, e.g. 4K)", defaultValue = "0") String payloadSize,
             @ShellOption(help = "execution duration (expression)", defaultValue = "30m") String duration,
             @ShellOption(help = "event batch size", defaultValue = "64") String batchSize,
+            @ShellOption(help = "target rate for open-loop mode, e.g. 500/s (none for closed-loop)", defaultValue = "none") String rate,
+            @ShellOption(help = "load profile of level@duration stages, threads per partition, e.g. 10@1m,50@2m or 500/s@1m,1000/s@1m (none for fixed load)", defaultValue = "none") String profile,
+            @ShellOption(help = "statement executions before server-side prepare (0 disables, default for connection default)", defaultValue = "default") String prepareThreshold,
             @ShellOption(help = "dry run", defaultValue = "false") boolean dryRun
     ) {
         int batchSizeNum = Multiplier.parseInt(batchSize);
-        Duration runtimeDuration = DurationFormat.parseDuration(duration);
+        int payloadBytes = Multiplier.parseInt(payloadSize);
+        LoadProfile loadProfile = LoadProfile.parse(profile);
+        Duration runtimeDuration = loadProfile != null
+                ? loadProfile.getTotalDuration()
+                : DurationFormat.parseDuration(duration);
+        Pacer pacer = createPacer(loadProfile, rate);
+        int threadsPerPartition = loadProfile != null && !loadProfile.isRateLevels()
+                ? loadProfile.getMaxWorkers()
+                : threads;
 
         console.green(">> Starting events workload <<\n");
-        console.yellow("Number of threads: %d\n", threads);
+        console.yellow("Number of threads: %d\n", threadsPerPartition);
         console.yellow("Number of partitions: %d\n", partitions);
         console.yellow("Number of payload items: %d\n", payloadItems);
-        console.yellow("Runtime duration: %s\n", duration);
+        console.yellow("Payload addresses per item: %d\n", payloadAddresses);
+        console.yellow("Payload depth: %d\n", payloadDepth);
+        console.yellow("Payload min size: %d\n", payloadBytes);
+        console.yellow("Runtime duration: %s\n", runtimeDuration);
         console.yellow("Batch size: %d\n", batchSizeNum);
+        console.yellow("Target rate: %s\n", pacer != null ? String.format("%.1f/s", pacer.getRate()) : "closed-loop");
+        console.yellow("Load profile: %s\n", loadProfile != null ? loadProfile : "none");
+        console.yellow("Prepare threshold: %s\n", prepareThreshold);
+
+        applyPrepareThreshold(prepareThreshold);
+
+        final JsonPayloadGenerator payloadGenerator = payloadItems > 0
+                ? new JsonPayloadGenerator(payloadItems, payloadAddresses, payloadDepth, payloadBytes)
+                : null;
+
+        // Same SQL text per partition for the whole run to let the driver reuse prepared statements
+        final String[] insertSql = IntStream.rangeClosed(0, partitions)
+                .mapToObj(p -> "INSERT INTO event_" + p + " (aggregate_type,aggregate_id,event_type,payload) "
+                        + "VALUES (?,?,?,?)")
+                .toArray(String[]::new);
 
         IntStream.rangeClosed(1, partitions).forEach(p -> {
-            IntStream.rangeClosed(1, threads).forEach(t -> {
-                boundedExecutor.submit(() -> submitBatch(p, batchSizeNum, payloadItems, dryRun),
+            IntStream.rangeClosed(1, threadsPerPartition).forEach(t -> {
+                boundedExecutor.submit(() -> submitBatch(insertSql[p], batchSizeNum, payloadGenerator, dryRun),
                         "writer #" + p + " thread " + t
-                                + " (batch size " + batchSize + ")", runtimeDuration);
+                                + " (batch size " + batchSize + ")", runtimeDuration, pacer,
+                        loadProfile != null ? loadProfile.gate(t) : null);
             });
         });
+
+        if (loadProfile != null) {
+            startLoadProfile(loadProfile, pacer);
+        }
     }
 
-    private void submitBatch(int partition, int batchSize, int payloadItems, boolean dryRun) {
+    private void submitBatch(String sql, int batchSize, JsonPayloadGenerator payloadGenerator, boolean dryRun) {
         final List<OutboxEvent> outboxEvents = IntStream.rangeClosed(1, batchSize)
-                .mapToObj(seq -> newOutboxEvent(payloadItems))
+                .mapToObj(seq -> newOutboxEvent(payloadGenerator))
                 .collect(Collectors.toList());
 
-        final String sql =
-                String.format("INSERT INTO event_%d (aggregate_type,aggregate_id,event_type,payload) "
-                        + "VALUES (?,?,?,?)", partition);
-
         if (!dryRun) {
             jdbcTemplate.batchUpdate(sql,
                     new BatchPreparedStatementSetter() {
@@ -97,7 +128,7 @@ public class EventsWorkload extends AbstractWorkload {
                             ps.setString(1, outboxEvent.getAggregateType());
                             ps.setString(2, outboxEvent.getAggregateId());
                             ps.setString(3, outboxEvent.getEventType());
-                            if (payloadItems > 0) {
+                            if (outboxEvent.getPayload() != null) {
                                 ps.setObject(4, outboxEvent.getPayload(), Types.OTHER);
                             } else {
                                 ps.setNull(4, Types.OTHER);
@@ -112,13 +143,13 @@ public class EventsWorkload extends AbstractWorkload {
         }
     }
 
-    private OutboxEvent newOutboxEvent(int payloadItems) {
+    private OutboxEvent newOutboxEvent(JsonPayloadGenerator payloadGenerator) {
         OutboxEvent outboxEvent = new OutboxEvent();
-        outboxEvent.setAggregateId(UUID.randomUUID().toString());
+        outboxEvent.setAggregateId(FastRandom.current().nextUUID().toString());
         outboxEvent.setEventType("user_profile_updated");
         outboxEvent.setAggregateType("User");
-        if (payloadItems > 0) {
-            outboxEvent.setPayload(RandomData.randomUserJson(payloadItems, 2));
+        if (payloadGenerator != null) {
+            outboxEvent.setPayload(payloadGenerator.generate());
         }
         return outboxEvent;
     }
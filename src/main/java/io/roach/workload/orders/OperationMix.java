@@ -0,0 +1,91 @@
+package io.roach.workload.orders;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import io.roach.workload.common.util.AliasTable;
+
+/**
+ * Weighted mix of order operations, parsed from an expression like
+ * {@code insert:60,read:25,updateStatus:10,delete:5} and sampled per call.
+ */
+public class OperationMix {
+    public enum Operation {
+        insert,
+        read,
+        updateStatus,
+        delete
+    }
+
+    public static OperationMix parse(String expression) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+
+        for (String token : expression.split(",")) {
+            String[] parts = token.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid operation (expected name:weight): " + token);
+            }
+            Operation operation = null;
+            for (Operation candidate : Operation.values()) {
+                if (candidate.name().equalsIgnoreCase(parts[0].trim())) {
+                    operation = candidate;
+                }
+            }
+            if (operation == null) {
+                throw new IllegalArgumentException("Unknown operation (insert|read|updateStatus|delete): "
+                        + parts[0]);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Operation weight must be >= 0: " + token);
+            }
+            weights.merge(operation, weight, Integer::sum);
+        }
+
+        weights.values().removeIf(weight -> weight == 0);
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("No operations with weight > 0: " + expression);
+        }
+
+        return new OperationMix(weights);
+    }
+
+    private final Map<Operation, Integer> weights;
+
+    private final AliasTable<Operation> sampler;
+
+    private OperationMix(Map<Operation, Integer> weights) {
+        this.weights = Collections.unmodifiableMap(weights);
+        this.sampler = new AliasTable<>(new ArrayList<>(weights.keySet()), weights::get);
+    }
+
+    public Operation next() {
+        return sampler.next();
+    }
+
+    public List<Operation> getOperations() {
+        return sampler.getItems();
+    }
+
+    public int getWeight(Operation operation) {
+        return weights.getOrDefault(operation, 0);
+    }
+
+    /**
+     * @return true if only inserts, the default mode of the workload
+     */
+    public boolean isInsertOnly() {
+        return weights.size() == 1 && weights.containsKey(Operation.insert);
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(",");
+        weights.forEach((operation, weight) -> joiner.add(operation + ":" + weight));
+        return joiner.toString();
+    }
+}
@@ -2,9 +2,20 @@ package io.roach.workload.orders;
 
 import java.time.Duration;
 import java.time.LocalDate;
-import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,17 +26,34 @@ import org.springframework.shell.standard.ShellOption;
 
 import io.roach.workload.Profiles;
 import io.roach.workload.common.AbstractWorkload;
+import io.roach.workload.common.util.CallMetric;
 import io.roach.workload.common.util.DurationFormat;
+import io.roach.workload.common.util.FastRandom;
+import io.roach.workload.common.util.KeyDistribution;
+import io.roach.workload.common.util.LatencyHistogram;
+import io.roach.workload.common.util.LoadProfile;
 import io.roach.workload.common.util.Multiplier;
-import io.roach.workload.common.util.RandomData;
+import io.roach.workload.common.util.Pacer;
 import io.roach.workload.orders.model.AbstractOrder;
 import io.roach.workload.orders.model.Order1;
 import io.roach.workload.orders.model.OrderEntities;
+import io.roach.workload.orders.model.ShipmentStatus;
 import io.roach.workload.orders.repository.OrderRepository;
+import io.roach.workload.orders.repository.OrderTable;
 
 @Profiles.Orders
 @ShellComponent
 public class OrdersWorkload extends AbstractWorkload {
+    private static final String GENERATE_METRIC = "generate";
+
+    private static final String QUEUE_WAIT_METRIC = "queue-wait";
+
+    private static final String INSERT_METRIC = "insert";
+
+    private static final int RECENT_ORDERS_CAPACITY = 100_000;
+
+    private static final int MAX_SAMPLE_ATTEMPTS = 3;
+
     @Autowired
     @Qualifier("jdbcOrderRepository")
     private OrderRepository jdbcOrderRepository;
@@ -34,6 +62,10 @@ public class OrdersWorkload extends AbstractWorkload {
     @Qualifier("jdbcOrderRepositoryExplicit")
     private OrderRepository jdbcOrderRepositoryExplicit;
 
+    @Autowired
+    @Qualifier("copyOrderRepository")
+    private OrderRepository copyOrderRepository;
+
     @Autowired
     @Qualifier("jpaOrderRepository")
     private OrderRepository jpaOrderRepository;
@@ -69,20 +101,45 @@ public class OrdersWorkload extends AbstractWorkload {
             @ShellOption(help = "queue capacity (default is unbounded)", defaultValue = "-1") int queueSize,
             @ShellOption(help = "order batch size", defaultValue = "16") String batchSize,
             @ShellOption(help = "execution duration", defaultValue = "45m") String duration,
-            @ShellOption(help = "data access method (jdbc|jdbcx|jpa|fake)", defaultValue = "jdbc") String method,
-            @ShellOption(help = "include JSON payload (customer profile)", defaultValue = "false") boolean includeJson
+            @ShellOption(help = "target rate for open-loop mode, e.g. 500/s (none for closed-loop)", defaultValue = "none") String rate,
+            @ShellOption(help = "load profile of level@duration stages, write threads, e.g. 10@1m,50@2m or 500/s@1m,1000/s@1m (none for fixed load)", defaultValue = "none") String profile,
+            @ShellOption(help = "data access method (jdbc|jdbcx|copy|jpa|fake)", defaultValue = "jdbc") String method,
+            @ShellOption(help = "table key distribution (uniform|zipf:theta|hotspot:ops:keys|sequential|latest)", defaultValue = "uniform") String distribution,
+            @ShellOption(help = "include JSON payload (customer profile)", defaultValue = "false") boolean includeJson,
+            @ShellOption(help = "generate batches in separate threads feeding the writers through a bounded queue", defaultValue = "false") boolean pipeline,
+            @ShellOption(help = "number of generator threads in pipeline mode (default is half the write threads)", defaultValue = "-1") int generatorThreads,
+            @ShellOption(help = "capacity of ready batches in pipeline mode (default is 2x write threads)", defaultValue = "-1") int pipelineDepth,
+            @ShellOption(help = "statement executions before server-side prepare (0 disables, default for connection default)", defaultValue = "default") String prepareThreshold,
+            @ShellOption(help = "weighted operation mix of writers, e.g. insert:60,read:25,updateStatus:10,delete:5", defaultValue = "insert:100") String mix
     ) {
         final int batchSizeNum = Multiplier.parseInt(batchSize);
-        final Duration runtimeDuration = DurationFormat.parseDuration(duration);
+        final LoadProfile loadProfile = LoadProfile.parse(profile);
+        final Duration runtimeDuration = loadProfile != null
+                ? loadProfile.getTotalDuration()
+                : DurationFormat.parseDuration(duration);
         final OrderRepository orderRepository = getOrderRepositoryUsing(method);
+        final Pacer pacer = createPacer(loadProfile, rate);
+        final OperationMix operationMix = OperationMix.parse(mix);
 
         if ("jpa".equalsIgnoreCase(method) && partitions > SchemaSupport.orderEntities.size()) {
             console.red("Max %d partitions for JPA mode\n", SchemaSupport.orderEntities.size());
             return;
         }
 
+        if (!operationMix.isInsertOnly()) {
+            if ("jpa".equalsIgnoreCase(method)) {
+                console.red("Operation mix not supported for JPA mode\n");
+                return;
+            }
+            if (pipeline) {
+                console.red("Operation mix not supported in pipeline mode\n");
+                return;
+            }
+        }
 
-        if (writeThreads <= 0) {
+        if (loadProfile != null && !loadProfile.isRateLevels()) {
+            writeThreads = loadProfile.getMaxWorkers();
+        } else if (writeThreads <= 0) {
             writeThreads = Runtime.getRuntime().availableProcessors();
         }
 
@@ -90,6 +147,14 @@ public class OrdersWorkload extends AbstractWorkload {
             queueSize = 500_000;
         }
 
+        if (generatorThreads <= 0) {
+            generatorThreads = Math.max(1, writeThreads / 2);
+        }
+
+        if (pipelineDepth <= 0) {
+            pipelineDepth = writeThreads * 2;
+        }
+
         console.green(">> Starting orders workload\n");
         console.yellow("Number of tables: %d\n", partitions);
         console.yellow("Number of write threads: %d\n", writeThreads);
@@ -97,69 +162,364 @@ public class OrdersWorkload extends AbstractWorkload {
         console.yellow("Queue size: %d\n", queueSize);
         console.yellow("Batch size: %d\n", batchSizeNum);
         console.yellow("Include JSON payload: %s\n", includeJson);
-        console.yellow("Runtime duration: %s\n", duration);
+        console.yellow("Runtime duration: %s\n", runtimeDuration);
+        console.yellow("Target rate: %s\n", pacer != null ? String.format("%.1f/s", pacer.getRate()) : "closed-loop");
+        console.yellow("Load profile: %s\n", loadProfile != null ? loadProfile : "none");
+        console.yellow("Prepare threshold: %s\n", prepareThreshold);
+        console.yellow("Operation mix: %s\n", operationMix);
+        console.yellow("Pipeline: %s\n", pipeline
+                ? String.format("%d generator threads, depth %d", generatorThreads, pipelineDepth)
+                : "off");
+
+        applyPrepareThreshold(prepareThreshold);
+
+        final LinkedBlockingQueue<OrderBatch> outBox = new LinkedBlockingQueue<>(queueSize);
+
+        final long deadline = System.currentTimeMillis() + runtimeDuration.toMillis();
+
+        // Resolve tables and their SQL once for the run
+        final List<OrderTable> tables = SchemaSupport.orderTables(partitions);
+
+        final KeyDistribution keyDistribution = KeyDistribution.parse(distribution, tables.size());
+
         console.yellow("Data access method: %s\n", method);
+        console.yellow("Table distribution: %s\n", keyDistribution);
 
-        final LinkedBlockingQueue<List<? extends AbstractOrder>> outBox = new LinkedBlockingQueue<>(queueSize);
+        if (pipeline) {
+            final BlockingQueue<OrderBatch> readyBatches = new ArrayBlockingQueue<>(pipelineDepth);
+            final CallMetric callMetric = boundedExecutor.getCallMetric();
+            final CallMetric.Context generateContext = callMetric.add(GENERATE_METRIC);
+            final CallMetric.Context queueWaitContext = callMetric.add(QUEUE_WAIT_METRIC);
+            final CallMetric.Context insertContext = callMetric.add(INSERT_METRIC);
 
-        final List<Class<? extends AbstractOrder>> entities
-                = Collections.unmodifiableList(SchemaSupport.orderEntities.subList(0, partitions));
+            // Stage timings break down the writer calls and generators don't insert anything,
+            // so only the writers count towards the totals
+            callMetric.excludeFromTotals(GENERATE_METRIC);
+            callMetric.excludeFromTotals(QUEUE_WAIT_METRIC);
+            callMetric.excludeFromTotals(INSERT_METRIC);
 
-        // Consumers
-        IntStream.rangeClosed(1, writeThreads).forEach(value -> {
-            boundedExecutor.submit(() -> {
-                Class<? extends AbstractOrder> orderType = RandomData.selectRandom(entities);
-                try {
-                    List<? extends AbstractOrder> orderBatch = OrderEntities
-                            .generateOrderEntities(orderType, batchSizeNum);
-                    orderRepository.insertOrders(orderBatch, includeJson);
-                    if (readThreads > 0) {
-                        outBox.put(orderBatch);
+            // Producers, blocked by the bounded queue when writers fall behind
+            IntStream.rangeClosed(1, generatorThreads).forEach(value -> {
+                final String generatorName = "generator #" + value + " (batch size " + batchSize + ")";
+                callMetric.excludeFromTotals(generatorName);
+
+                boundedExecutor.submitPolling(() -> {
+                    OrderTable table = tables.get(keyDistribution.nextIndex());
+                    long time = generateContext.enter();
+                    OrderBatch orderBatch = new OrderBatch(table, OrderEntities
+                            .generateOrderEntities(table.getOrderType(), batchSizeNum));
+                    generateContext.exit(time, null);
+                    try {
+                        return offerUntil(readyBatches, orderBatch, deadline);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
                     }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }, "writer #" + value + " (batch size " + batchSize + ")", runtimeDuration);
-        });
+                }, generatorName, runtimeDuration, null, null);
+            });
+
+            // Consumers
+            IntStream.rangeClosed(1, writeThreads).forEach(value -> {
+                boundedExecutor.submitPolling(() -> {
+                    try {
+                        long time = queueWaitContext.enter();
+                        OrderBatch orderBatch = readyBatches.poll(1, TimeUnit.SECONDS);
+                        if (orderBatch == null) {
+                            return false;
+                        }
+                        queueWaitContext.exit(time, null);
+
+                        time = insertContext.enter();
+                        try {
+                            orderRepository.insertOrders(orderBatch.table, orderBatch.orders, includeJson);
+                            insertContext.exit(time, null);
+                        } catch (RuntimeException e) {
+                            insertContext.exit(time, e);
+                            throw e;
+                        }
+
+                        if (readThreads > 0) {
+                            offerUntil(outBox, orderBatch, deadline);
+                        }
+                        return true;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }, "writer #" + value + " (batch size " + batchSize + ")", runtimeDuration, pacer,
+                        loadProfile != null ? loadProfile.gate(value) : null);
+            });
+
+            removeWhenDone(GENERATE_METRIC, QUEUE_WAIT_METRIC, INSERT_METRIC);
+        } else if (!operationMix.isInsertOnly()) {
+            final CallMetric callMetric = boundedExecutor.getCallMetric();
+            final Map<OperationMix.Operation, CallMetric.Context> contexts = new EnumMap<>(OperationMix.Operation.class);
+            // Inserts are the fallback until there are orders to operate on
+            contexts.put(OperationMix.Operation.insert, callMetric.add(OperationMix.Operation.insert.name()));
+            operationMix.getOperations().forEach(operation -> contexts.put(operation, callMetric.add(operation.name())));
+
+            // Operation timings break down the writer calls, so only the writers count towards the totals.
+            // Lost claims and statements affecting no rows are skipped by both.
+            contexts.keySet().forEach(operation -> callMetric.excludeFromTotals(operation.name()));
+
+            final RecentOrders recentOrders = new RecentOrders(RECENT_ORDERS_CAPACITY);
+
+            IntStream.rangeClosed(1, writeThreads).forEach(value -> {
+                boundedExecutor.submitPolling(() -> {
+                    FastRandom random = FastRandom.current();
+                    OperationMix.Operation operation = operationMix.next();
+
+                    int slot = -1;
+                    RecentOrders.Entry entry = null;
+                    if (operation != OperationMix.Operation.insert) {
+                        for (int i = 0; i < MAX_SAMPLE_ATTEMPTS && entry == null; i++) {
+                            slot = recentOrders.sample(random);
+                            entry = recentOrders.get(slot);
+                            if (entry != null && operation == OperationMix.Operation.updateStatus
+                                    && entry.getStatus().next() == null) {
+                                entry = null;
+                            }
+                        }
+                        if (entry == null) {
+                            operation = OperationMix.Operation.insert;
+                        }
+                    }
+
+                    final CallMetric.Context context = contexts.get(operation);
+
+                    switch (operation) {
+                        case insert: {
+                            OrderTable table = tables.get(keyDistribution.nextIndex());
+                            OrderBatch orderBatch = new OrderBatch(table, OrderEntities
+                                    .generateOrderEntities(table.getOrderType(), batchSizeNum));
+                            long time = context.enter();
+                            try {
+                                orderRepository.insertOrders(table, orderBatch.orders, includeJson);
+                                context.exit(time, null);
+                            } catch (RuntimeException e) {
+                                context.exit(time, e);
+                                throw e;
+                            }
+                            orderBatch.orders.forEach(order -> recentOrders.add(table, order));
+                            if (readThreads > 0) {
+                                try {
+                                    offerUntil(outBox, orderBatch, deadline);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                            }
+                            return true;
+                        }
+                        case read: {
+                            long time = context.enter();
+                            try {
+                                orderRepository.findOrder(entry.getTable(), entry.getId());
+                                context.exit(time, null);
+                            } catch (RuntimeException e) {
+                                context.exit(time, e);
+                                throw e;
+                            }
+                            return true;
+                        }
+                        case updateStatus: {
+                            ShipmentStatus status = entry.getStatus().next();
+                            RecentOrders.Entry claimed = entry.withStatus(status);
+                            // Claim the transition so concurrent writers don't race on the same order
+                            if (!recentOrders.replace(slot, entry, claimed)) {
+                                return false;
+                            }
+                            long time = context.enter();
+                            int rows;
+                            try {
+                                rows = orderRepository.updateStatus(entry.getTable(), entry.getId(),
+                                        entry.getStatus(), status);
+                            } catch (RuntimeException e) {
+                                context.exit(time, e);
+                                recentOrders.replace(slot, claimed, entry);
+                                throw e;
+                            }
+                            if (rows == 0) {
+                                // Status changed or order deleted behind our back, drop the stale entry
+                                recentOrders.remove(slot, claimed);
+                                return false;
+                            }
+                            context.exit(time, null);
+                            return true;
+                        }
+                        case delete: {
+                            if (!recentOrders.remove(slot, entry)) {
+                                return false;
+                            }
+                            long time = context.enter();
+                            int rows;
+                            try {
+                                rows = orderRepository.deleteOrder(entry.getTable(), entry.getId());
+                            } catch (RuntimeException e) {
+                                context.exit(time, e);
+                                recentOrders.replace(slot, null, entry);
+                                throw e;
+                            }
+                            if (rows == 0) {
+                                return false;
+                            }
+                            context.exit(time, null);
+                            return true;
+                        }
+                        default:
+                            throw new IllegalStateException("Unknown operation: " + operation);
+                    }
+                }, "writer #" + value + " (mix " + operationMix + ")", runtimeDuration, pacer,
+                        loadProfile != null ? loadProfile.gate(value) : null);
+            });
+
+            removeWhenDone(contexts.keySet().stream().map(Enum::name).toArray(String[]::new));
+        } else {
+            // Consumers
+            IntStream.rangeClosed(1, writeThreads).forEach(value -> {
+                boundedExecutor.submit(() -> {
+                    OrderTable table = tables.get(keyDistribution.nextIndex());
+                    try {
+                        OrderBatch orderBatch = new OrderBatch(table, OrderEntities
+                                .generateOrderEntities(table.getOrderType(), batchSizeNum));
+                        orderRepository.insertOrders(table, orderBatch.orders, includeJson);
+                        if (readThreads > 0) {
+                            outBox.put(orderBatch);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "writer #" + value + " (batch size " + batchSize + ")", runtimeDuration, pacer,
+                        loadProfile != null ? loadProfile.gate(value) : null);
+            });
+        }
 
         IntStream.rangeClosed(1, readThreads).forEach(value -> {
-            boundedExecutor.submit(() -> {
+            boundedExecutor.submitPolling(() -> {
                 try {
-                    List<? extends AbstractOrder> orderBatch = outBox.take();
-                    if (orderBatch.size() > 0) {
-                        orderRepository.readOrders(orderBatch.get(0).getClass(), orderBatch);
+                    // Poll rather than take, so readers exit once the writers are done
+                    OrderBatch orderBatch = outBox.poll(1, TimeUnit.SECONDS);
+                    if (orderBatch == null) {
+                        return false;
                     }
+                    if (orderBatch.orders.size() > 0) {
+                        orderRepository.readOrders(orderBatch.table, orderBatch.orders);
+                    }
+                    return true;
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
+                    return false;
                 }
-            }, "reader #" + value + " (batch size " + batchSize + ")", runtimeDuration);
+            }, "reader #" + value + " (batch size " + batchSize + ")", runtimeDuration, null, null);
         });
+
+        if (loadProfile != null) {
+            startLoadProfile(loadProfile, pacer);
+        }
     }
 
     @ShellMethod(value = "List orders using pagination")
-    public void list(@ShellOption(help = "data access method (jdbc|jdbcx|jpa)", defaultValue = "jdbc") String method,
-                     @ShellOption(help = "start offset", defaultValue = "0") int offset,
-                     @ShellOption(help = "item limit per page", defaultValue = "500") int limit,
-                     @ShellOption(help = "max pages", defaultValue = "500") int pageLimit
+    public void list(@ShellOption(help = "data access method (jdbc|jdbcx|copy|jpa)", defaultValue = "jdbc") String method,
+                     @ShellOption(help = "pagination mode (offset|keyset|stream)", defaultValue = "offset") String mode,
+                     @ShellOption(help = "start offset (offset mode)", defaultValue = "0") int offset,
+                     @ShellOption(help = "item limit per page (fetch size in stream mode)", defaultValue = "500") int limit,
+                     @ShellOption(help = "max pages", defaultValue = "500") int pageLimit,
+                     @ShellOption(help = "print every n:th page (0 for summary only)", defaultValue = "1") int printEvery
     ) {
-        OrderRepository repository = getOrderRepositoryUsing(method);
+        if (!Arrays.asList("offset", "keyset", "stream").contains(mode.toLowerCase(Locale.ENGLISH))) {
+            console.red("Unknown pagination mode (offset|keyset|stream): %s\n", mode);
+            return;
+        }
+        // Pagination queries are implemented by the JDBC and JPA repositories only
+        if ("fake".equalsIgnoreCase(method)) {
+            console.red("Pagination not supported by data access method: %s (jdbc|jdbcx|copy|jpa)\n", method);
+            return;
+        }
+
+        final OrderRepository repository = getOrderRepositoryUsing(method);
+        final LocalDate moreRecentThan = LocalDate.now();
+        final LatencyHistogram pageLatency = new LatencyHistogram();
+        final AtomicInteger pages = new AtomicInteger();
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong pageStart = new AtomicLong(System.nanoTime());
+
+        final Consumer<List<Order1>> pageDone = orders -> {
+            long now = System.nanoTime();
+            long nanos = now - pageStart.get();
+            pageLatency.recordNanos(nanos);
+            int page = pages.incrementAndGet();
+            total.addAndGet(orders.size());
+            if (printEvery > 0 && page % printEvery == 0) {
+                console.yellow("Page %d rows %d total %,d in %.2f ms\n", page, orders.size(), total.get(), nanos / 1e6);
+            }
+            pageStart.set(System.nanoTime());
+        };
 
-        console.green("Listing %d pages at most\n", pageLimit);
+        console.green("Listing %d pages at most using %s pagination\n", pageLimit, mode);
 
-        int page = 1;
-        int total = 0;
-        List<Order1> orders;
+        final long startTime = System.nanoTime();
 
-        do {
-            orders = repository.findOrders(Order1.class, LocalDate.now(), offset, limit);
-            console.yellow("Page %d offset %d limit %d\n", page, offset, limit);
-//            orders.forEach(o -> console.green("%s\n", o));
-            offset += limit;
-            page++;
-            total += orders.size();
-        } while (!orders.isEmpty() && page < pageLimit);
+        if ("offset".equalsIgnoreCase(mode)) {
+            List<Order1> orders;
+            do {
+                orders = repository.findOrders(Order1.class, moreRecentThan, offset, limit);
+                offset += limit;
+                pageDone.accept(orders);
+            } while (orders.size() == limit && pages.get() < pageLimit);
+        } else if ("keyset".equalsIgnoreCase(mode)) {
+            List<Order1> orders;
+            AbstractOrder.Id after = null;
+            do {
+                orders = repository.findOrdersAfter(Order1.class, moreRecentThan, after, limit);
+                if (!orders.isEmpty()) {
+                    after = orders.get(orders.size() - 1).getId();
+                }
+                pageDone.accept(orders);
+            } while (orders.size() == limit && pages.get() < pageLimit);
+        } else if ("stream".equalsIgnoreCase(mode)) {
+            long maxRows = (long) limit * pageLimit;
+            repository.streamOrders(Order1.class, moreRecentThan, limit, maxRows, pageDone);
+        } else {
+            throw new IllegalArgumentException("Unknown pagination mode (offset|keyset|stream): " + mode);
+        }
 
-        console.yellow("%,d orders in %,d pages\n", page, total);
+        final double totalMillis = (System.nanoTime() - startTime) / 1e6;
+        final LatencyHistogram.Snapshot snapshot = pageLatency.snapshot();
+
+        console.yellow("%,d orders in %,d pages in %.1f ms\n", total.get(), pages.get(), totalMillis);
+        console.yellow("Page latency p50 %.2f ms p90 %.2f ms p99 %.2f ms max %.2f ms (%s)\n",
+                snapshot.valueAtPercentile(.5),
+                snapshot.valueAtPercentile(.9),
+                snapshot.valueAtPercentile(.99),
+                snapshot.maxValue(),
+                mode);
+    }
+
+    private static final class OrderBatch {
+        final OrderTable table;
+
+        final List<? extends AbstractOrder> orders;
+
+        OrderBatch(OrderTable table, List<? extends AbstractOrder> orders) {
+            this.table = table;
+            this.orders = orders;
+        }
+    }
+
+    /**
+     * Remove pipeline stage and operation metrics, not owned by any worker group, once all workers
+     * are done.
+     */
+    private void removeWhenDone(String... names) {
+        final AtomicReference<ScheduledFuture<?>> future = new AtomicReference<>();
+        future.set(scheduledExecutorService.scheduleAtFixedRate(() -> {
+            if (!boundedExecutor.hasActiveWorkers()) {
+                CallMetric callMetric = boundedExecutor.getCallMetric();
+                for (String name : names) {
+                    callMetric.remove(name);
+                }
+                future.get().cancel(false);
+            }
+        }, 1, 1, TimeUnit.SECONDS));
     }
 
     private OrderRepository getOrderRepositoryUsing(String method) {
@@ -167,11 +527,13 @@ public class OrdersWorkload extends AbstractWorkload {
             return jdbcOrderRepository;
         } else if ("jdbcx".equalsIgnoreCase(method)) {
             return jdbcOrderRepositoryExplicit;
+        } else if ("copy".equalsIgnoreCase(method)) {
+            return copyOrderRepository;
         } else if ("jpa".equalsIgnoreCase(method)) {
             return jpaOrderRepository;
         } else if ("fake".equalsIgnoreCase(method)) {
             return fakeOrderRepository;
         }
-        throw new IllegalArgumentException("Unknown access method (jdbc|jdbcx|jpa): " + method);
+        throw new IllegalArgumentException("Unknown access method (jdbc|jdbcx|copy|jpa|fake): " + method);
     }
 }
@@ -0,0 +1,85 @@
+package io.roach.workload.orders;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.roach.workload.common.util.FastRandom;
+import io.roach.workload.orders.model.AbstractOrder;
+import io.roach.workload.orders.model.ShipmentStatus;
+import io.roach.workload.orders.repository.OrderTable;
+
+/**
+ * Bounded ring of recently inserted order keys with their last known status, for picking
+ * existing orders to read, update or delete. Slots are overwritten oldest first and
+ * claimed by compare-and-set, so two workers don't move or delete the same order.
+ */
+public class RecentOrders {
+    public static final class Entry {
+        private final OrderTable table;
+
+        private final AbstractOrder.Id id;
+
+        private final ShipmentStatus status;
+
+        public Entry(OrderTable table, AbstractOrder.Id id, ShipmentStatus status) {
+            this.table = table;
+            this.id = id;
+            this.status = status;
+        }
+
+        public OrderTable getTable() {
+            return table;
+        }
+
+        public AbstractOrder.Id getId() {
+            return id;
+        }
+
+        public ShipmentStatus getStatus() {
+            return status;
+        }
+
+        public Entry withStatus(ShipmentStatus status) {
+            return new Entry(table, id, status);
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> ring;
+
+    private final AtomicLong cursor = new AtomicLong();
+
+    public RecentOrders(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be > 0: " + capacity);
+        }
+        this.ring = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(OrderTable table, AbstractOrder order) {
+        int slot = (int) (cursor.getAndIncrement() % ring.length());
+        ring.set(slot, new Entry(table, order.getId(), order.getStatus()));
+    }
+
+    /**
+     * @return a random slot among the ones filled so far or -1 if empty
+     */
+    public int sample(FastRandom random) {
+        long filled = Math.min(cursor.get(), ring.length());
+        return filled > 0 ? random.nextInt((int) filled) : -1;
+    }
+
+    /**
+     * @return the entry in a slot or null if empty or removed
+     */
+    public Entry get(int slot) {
+        return slot >= 0 ? ring.get(slot) : null;
+    }
+
+    public boolean replace(int slot, Entry expected, Entry entry) {
+        return ring.compareAndSet(slot, expected, entry);
+    }
+
+    public boolean remove(int slot, Entry expected) {
+        return ring.compareAndSet(slot, expected, null);
+    }
+}
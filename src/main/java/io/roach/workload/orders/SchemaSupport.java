@@ -1,6 +1,7 @@
 package io.roach.workload.orders;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
@@ -13,6 +14,7 @@ import org.springframework.util.PropertyPlaceholderHelper;
 
 import io.roach.workload.common.util.ResourceSupport;
 import io.roach.workload.orders.model.*;
+import io.roach.workload.orders.repository.OrderTable;
 
 public class SchemaSupport {
     public static final List<Class<? extends AbstractOrder>> orderEntities = new ArrayList<>();
@@ -40,6 +42,20 @@ public class SchemaSupport {
         orderEntities.add(Order20.class);
     }
 
+    /**
+     * @param partitions number of partitions
+     * @return the partition tables, mapped to entity types where available
+     */
+    public static List<OrderTable> orderTables(int partitions) {
+        List<OrderTable> tables = new ArrayList<>(partitions);
+        for (int p = 1; p <= partitions; p++) {
+            tables.add(p <= orderEntities.size()
+                    ? OrderTable.forEntity(orderEntities.get(p - 1))
+                    : OrderTable.forPartition(p));
+        }
+        return Collections.unmodifiableList(tables);
+    }
+
     private final DataSource dataSource;
 
     private final JdbcTemplate jdbcTemplate;
@@ -51,10 +67,11 @@ public class SchemaSupport {
 
     public void dropSchema(int partitions) {
         final PropertyPlaceholderHelper plh = new PropertyPlaceholderHelper("${", "}");
+        final String template = ResourceSupport.resourceAsString("db/orders/drop-orders.sql");
         DatabasePopulatorUtils.execute(connection -> IntStream.rangeClosed(1, partitions)
                 .forEach(p -> {
                     String sql = plh
-                            .replacePlaceholders(ResourceSupport.resourceAsString("db/orders/drop-orders.sql"),
+                            .replacePlaceholders(template,
                                     placeholderName -> {
                                         if ("partition".equals(placeholderName)) {
                                             return p + "";
@@ -67,10 +84,11 @@ public class SchemaSupport {
 
     public void createSchema(int partitions, String countryCode) {
         final PropertyPlaceholderHelper plh = new PropertyPlaceholderHelper("${", "}");
+        final String template = ResourceSupport.resourceAsString("db/orders/create-orders.sql");
         DatabasePopulatorUtils.execute(connection -> IntStream.rangeClosed(1, partitions)
                 .forEach(p -> {
                     String sql = plh
-                            .replacePlaceholders(ResourceSupport.resourceAsString("db/orders/create-orders.sql"),
+                            .replacePlaceholders(template,
                                     placeholderName -> {
                                         if ("partition".equals(placeholderName)) {
                                             return p + "";
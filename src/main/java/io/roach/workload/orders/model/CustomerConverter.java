@@ -8,19 +8,35 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 public class CustomerConverter implements AttributeConverter<Customer, String> {
-    private final Logger logger = LoggerFactory.getLogger(getClass());
-
-    private final ObjectMapper objectMapper = new ObjectMapper()
+    private static final ObjectMapper objectMapper = new ObjectMapper()
             .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
             .enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)
             .setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
+    private static final ObjectWriter customerWriter = objectMapper.writerFor(Customer.class);
+
+    /**
+     * Write a customer with the same mapping as the JPA converter, for JDBC paths writing
+     * to their own generator.
+     *
+     * @param generator the target generator
+     * @param customer the customer
+     * @throws IOException on write errors
+     */
+    public static void writeCustomer(JsonGenerator generator, Customer customer) throws IOException {
+        customerWriter.writeValue(generator, customer);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
     @Override
     public String convertToDatabaseColumn(Customer customer) {
         String customerInfoJson = null;
@@ -6,17 +6,20 @@ import java.util.Currency;
 import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
-import io.roach.workload.common.util.RandomData;
+import io.roach.workload.common.util.FastRandom;
 
 public class OrderEntities {
     private static final AtomicInteger SEQUENCE = new AtomicInteger();
 
     private static final List<UUID> RAND_IDS = new ArrayList<>();
 
+    private static final ShipmentStatus[] STATUSES = ShipmentStatus.values();
+
+    private static final Currency CURRENCY = Currency.getInstance(Locale.US);
+
     static {
         IntStream.rangeClosed(1, 100).forEach(value -> RAND_IDS.add(UUID.randomUUID()));
     }
@@ -24,17 +27,16 @@ public class OrderEntities {
     private OrderEntities() {
     }
 
-    private static final ThreadLocalRandom random = ThreadLocalRandom.current();
-
     public static <T extends AbstractOrder> List<T> generateOrderEntities(Class<T> orderType,
                                                                           int orderCount) {
         final List<T> orders = new ArrayList<>(orderCount);
+        final FastRandom random = FastRandom.current();
 
         final Address a1 = randomAddress();
         final Address a2 = randomAddress();
         final LocalDate date = LocalDate.now().minusMonths(random.nextInt(3));
 
-        IntStream.rangeClosed(1, orderCount).forEach(value -> {
+        for (int i = 0; i < orderCount; i++) {
             T order;
             try {
                 order = orderType.newInstance();
@@ -42,16 +44,16 @@ public class OrderEntities {
                 throw new IllegalStateException(e);
             }
 
-            order.setId(AbstractOrder.Id.of(UUID.randomUUID(), date));
+            order.setId(AbstractOrder.Id.of(random.nextUUID(), date));
             order.setOrderNumber(SEQUENCE.incrementAndGet());
-            order.setStatus(RandomData.selectRandom(ShipmentStatus.values()));
+            order.setStatus(random.select(STATUSES));
             order.setDateUpdated(date);
-            order.setCustomerId(RandomData.selectRandom(RAND_IDS));
-            order.setPaymentMethod(RandomData.selectRandom(RAND_IDS));
-            order.setTotalPrice(RandomData.randomMoneyBetween(50.00, 10_000.00, Currency.getInstance(Locale.US)));
+            order.setCustomerId(random.select(RAND_IDS));
+            order.setPaymentMethod(random.select(RAND_IDS));
+            order.setTotalPrice(random.money(50.00, 10_000.00, CURRENCY));
 
-            String fn = RandomData.randomFirstName();
-            String ln = RandomData.randomLastName();
+            String fn = random.firstName();
+            String ln = random.lastName();
 
             order.setDeliverToFirstName(fn);
             order.setDeliverToLastName(ln);
@@ -64,29 +66,31 @@ public class OrderEntities {
             order.setCustomer(randomCustomer());
 
             orders.add(order);
-        });
+        }
 
         return orders;
     }
 
     public static Customer randomCustomer() {
+        FastRandom random = FastRandom.current();
         Customer c = new Customer();
-        c.setId(UUID.randomUUID());
-        c.setUserName(RandomData.randomFirstName());
+        c.setId(random.nextUUID());
+        c.setUserName(random.firstName());
         c.setAddress(randomAddress());
-        c.setEmail(RandomData.randomEmail());
-        c.setFirstName(RandomData.randomFirstName());
-        c.setLastName(RandomData.randomLastName());
-        c.setTelephone(RandomData.randomPhoneNumber());
+        c.setEmail(random.email());
+        c.setFirstName(random.firstName());
+        c.setLastName(random.lastName());
+        c.setTelephone(random.phoneNumber());
         return c;
     }
 
     public static Address randomAddress() {
+        FastRandom random = FastRandom.current();
         return Address.builder()
-                .setAddress1(RandomData.randomWord(15))
-                .setAddress2(RandomData.randomWord(15))
-                .setCity(RandomData.randomCity())
-                .setPostcode(RandomData.randomZipCode())
+                .setAddress1(random.word(20))
+                .setAddress2(random.word(20))
+                .setCity(random.city())
+                .setPostcode(random.zipCode())
                 .setCountry(Country.getDefault())
                 .build();
     }
@@ -3,5 +3,19 @@ package io.roach.workload.orders.model;
 public enum ShipmentStatus {
     PLACED,
     CONFIRMED,
-    DELIVERED
+    DELIVERED;
+
+    /**
+     * @return the next status in the order lifecycle or null if final
+     */
+    public ShipmentStatus next() {
+        switch (this) {
+            case PLACED:
+                return CONFIRMED;
+            case CONFIRMED:
+                return DELIVERED;
+            default:
+                return null;
+        }
+    }
 }
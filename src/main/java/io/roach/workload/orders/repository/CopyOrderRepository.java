@@ -0,0 +1,120 @@
+package io.roach.workload.orders.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import io.roach.workload.Profiles;
+import io.roach.workload.common.util.CopyTextEncoder;
+import io.roach.workload.orders.model.AbstractOrder;
+import io.roach.workload.orders.model.Address;
+import io.roach.workload.orders.model.Customer;
+
+/**
+ * Order repository inserting batches with COPY FROM STDIN instead of batched INSERTs,
+ * encoding rows into a pre-sized per-thread buffer. Reads go through the JDBC
+ * implementation.
+ */
+@Repository
+@Profiles.Orders
+public class CopyOrderRepository extends JdbcOrderRepository {
+    private static final int FLUSH_THRESHOLD = 256 * 1024;
+
+    private static final ThreadLocal<CopyTextEncoder> ENCODER
+            = ThreadLocal.withInitial(() -> new CopyTextEncoder(FLUSH_THRESHOLD));
+
+    public CopyOrderRepository(@Autowired JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    @Override
+    public void insertOrders(OrderTable table, List<? extends AbstractOrder> orders, boolean includeJson) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        final String query = table.copy;
+
+        Long rows = getJdbcTemplate().execute((ConnectionCallback<Long>) connection -> {
+            final CopyTextEncoder encoder = ENCODER.get();
+            encoder.reset();
+
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(query);
+            try {
+                LocalDate lastDate = null;
+                byte[] lastDateBytes = null;
+
+                for (AbstractOrder order : orders) {
+                    LocalDate datePlaced = order.getDatePlaced();
+                    if (!datePlaced.equals(lastDate)) {
+                        lastDate = datePlaced;
+                        lastDateBytes = CopyTextEncoder.encode(datePlaced.toString());
+                    }
+
+                    encoder.append(order.getId().getUUID())
+                            .append(order.getOrderNumber());
+                    appendAddress(encoder, order.getBillAddress(), order.getBillToFirstName(),
+                            order.getBillToLastName(), true);
+                    appendAddress(encoder, order.getDeliveryAddress(), order.getDeliverToFirstName(),
+                            order.getDeliverToLastName(), false);
+                    encoder.append(order.getStatus().name())
+                            .append(order.getTotalPrice().getAmount().toPlainString())
+                            .append(order.getTotalPrice().getCurrency().getCurrencyCode())
+                            .append(order.getCustomerId())
+                            .append(order.getPaymentMethod())
+                            .appendEncoded(lastDateBytes)
+                            .append(order.getDateUpdated().toString());
+
+                    Customer customer = order.getCustomer();
+                    if (customer != null && includeJson) {
+                        encoder.append(toJson(customer));
+                    } else {
+                        encoder.appendNull();
+                    }
+                    encoder.endRow();
+
+                    if (encoder.isFull()) {
+                        encoder.flushTo(copyIn);
+                    }
+                }
+                encoder.flushTo(copyIn);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+
+        if (rows == null || rows != orders.size()) {
+            throw new JdbcUpdateAffectedIncorrectNumberOfRowsException(query, orders.size(),
+                    rows != null ? rows.intValue() : 0);
+        }
+    }
+
+    /**
+     * Append address columns in table order, being address1, address2, city, country and
+     * postcode with the first and last name either after (billing) or before (delivery).
+     */
+    private static void appendAddress(CopyTextEncoder encoder, Address address, String firstName,
+                                      String lastName, boolean namesLast) {
+        if (!namesLast) {
+            encoder.append(firstName).append(lastName);
+        }
+        encoder.append(address.getAddress1())
+                .append(address.getAddress2())
+                .append(address.getCity())
+                .append(address.getCountry().getCode())
+                .append(address.getPostcode());
+        if (namesLast) {
+            encoder.append(firstName).append(lastName);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.stereotype.Repository;
 
 import io.roach.workload.Profiles;
 import io.roach.workload.orders.model.AbstractOrder;
+import io.roach.workload.orders.model.ShipmentStatus;
 
 @Repository
 @Profiles.Orders
@@ -19,4 +20,19 @@ public class FakeOrderRepository implements OrderRepository {
                                                     List<? extends AbstractOrder> templates) {
         return templates;
     }
+
+    @Override
+    public AbstractOrder findOrder(OrderTable table, AbstractOrder.Id id) {
+        return null;
+    }
+
+    @Override
+    public int updateStatus(OrderTable table, AbstractOrder.Id id, ShipmentStatus expected, ShipmentStatus status) {
+        return 1;
+    }
+
+    @Override
+    public int deleteOrder(OrderTable table, AbstractOrder.Id id) {
+        return 1;
+    }
 }
@@ -1,6 +1,7 @@
 package io.roach.workload.orders.repository;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.time.LocalDate;
@@ -8,30 +9,27 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
-
-import javax.persistence.Table;
-import javax.sql.DataSource;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import io.roach.workload.Profiles;
+import io.roach.workload.common.util.JsonPayloadGenerator;
 import io.roach.workload.common.util.Money;
 import io.roach.workload.orders.model.AbstractOrder;
 import io.roach.workload.orders.model.Address;
 import io.roach.workload.orders.model.Country;
 import io.roach.workload.orders.model.Customer;
+import io.roach.workload.orders.model.CustomerConverter;
 import io.roach.workload.orders.model.ShipmentStatus;
 
 @Repository
@@ -41,20 +39,21 @@ public class JdbcOrderRepository implements OrderRepository {
 
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
-    @Autowired
-    private ObjectMapper objectMapper;
+    public JdbcOrderRepository(@Autowired JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
 
-    public JdbcOrderRepository(@Autowired DataSource dataSource) {
-        this.jdbcTemplate = new JdbcTemplate(dataSource);
-        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    protected JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
     }
 
-    private String findTableName(Class<?> order) {
-        Table t = AnnotationUtils.findAnnotation(order, Table.class);
-        if (t == null) {
-            throw new IllegalArgumentException("No @Table annotation found for: " + order.getName());
-        }
-        return t.name();
+    /**
+     * Write the customer profile with the same mapping as the JPA converter, streamed into
+     * the calling thread's reusable buffer.
+     */
+    protected static String toJson(Customer customer) {
+        return JsonPayloadGenerator.writeJson(generator -> CustomerConverter.writeCustomer(generator, customer));
     }
 
     @Override
@@ -62,35 +61,16 @@ public class JdbcOrderRepository implements OrderRepository {
         if (orders.isEmpty()) {
             return;
         }
+        insertOrders(OrderTable.forEntity(orders.get(0).getClass()), orders, includeJson);
+    }
 
-        String tableName = findTableName(orders.get(0).getClass());
-
-        final String query = "INSERT INTO " + tableName + " ("
-                + "id,"
-                + "order_number,"
-                + "bill_address1,"
-                + "bill_address2,"
-                + "bill_city,"
-                + "bill_country_name,"
-                + "bill_postcode,"
-                + "bill_to_first_name,"
-                + "bill_to_last_name,"
-                + "deliv_to_first_name,"
-                + "deliv_to_last_name,"
-                + "deliv_address1,"
-                + "deliv_address2,"
-                + "deliv_city,"
-                + "deliv_country_name,"
-                + "deliv_postcode,"
-                + "status,"
-                + "amount,"
-                + "currency,"
-                + "customer_id,"
-                + "payment_method_id,"
-                + "date_placed,"
-                + "date_updated,"
-                + "customer_profile)"
-                + "values (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+    @Override
+    public void insertOrders(OrderTable table, List<? extends AbstractOrder> orders, boolean includeJson) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        final String query = table.insert;
 
         int[] rv = jdbcTemplate.batchUpdate(query, new BatchPreparedStatementSetter() {
             @Override
@@ -123,13 +103,7 @@ public class JdbcOrderRepository implements OrderRepository {
 
                 Customer customer = order.getCustomer();
                 if (customer != null && includeJson) {
-                    try {
-                        ps.setObject(++i,
-                                objectMapper.writer().writeValueAsString(customer),
-                                java.sql.Types.OTHER);
-                    } catch (JsonProcessingException e) {
-                        throw new SQLException("Error serializing json", e);
-                    }
+                    ps.setObject(++i, toJson(customer), Types.OTHER);
                 } else {
                     ps.setNull(++i, Types.NULL);
                 }
@@ -151,7 +125,14 @@ public class JdbcOrderRepository implements OrderRepository {
     @Override
     public List<? extends AbstractOrder> readOrders(Class<? extends AbstractOrder> orderType,
                            List<? extends AbstractOrder> templates) {
-        String tableName = findTableName(orderType);
+        return readOrders(OrderTable.forEntity(orderType), templates);
+    }
+
+    @Override
+    public List<? extends AbstractOrder> readOrders(OrderTable table, List<? extends AbstractOrder> templates) {
+        if (templates.isEmpty()) {
+            return templates;
+        }
 
         List<Object[]> idTuples = new ArrayList<>(templates.size());
         templates.forEach(order -> {
@@ -163,9 +144,9 @@ public class JdbcOrderRepository implements OrderRepository {
         parameters.addValue("ids", idTuples);
 
         List<? extends AbstractOrder> orders = namedParameterJdbcTemplate
-                .query("SELECT * FROM " + tableName + " WHERE (date_placed,id) IN (:ids)",
+                .query(table.read,
                         parameters,
-                        orderMapper(orderType)
+                        orderMapper(templates.get(0).getClass())
                 );
 
         if (orders.size() != templates.size()) {
@@ -175,22 +156,108 @@ public class JdbcOrderRepository implements OrderRepository {
         return orders;
     }
 
+    @Override
+    public AbstractOrder findOrder(OrderTable table, AbstractOrder.Id id) {
+        List<? extends AbstractOrder> orders = jdbcTemplate.query(table.get,
+                orderMapper(table.getOrderType()), id.getDatePlaced(), id.getUUID());
+        return orders.isEmpty() ? null : orders.get(0);
+    }
+
+    @Override
+    public int updateStatus(OrderTable table, AbstractOrder.Id id, ShipmentStatus expected, ShipmentStatus status) {
+        return jdbcTemplate.update(table.updateStatus,
+                status.name(), LocalDate.now(), id.getDatePlaced(), id.getUUID(), expected.name());
+    }
+
+    @Override
+    public int deleteOrder(OrderTable table, AbstractOrder.Id id) {
+        return jdbcTemplate.update(table.delete, id.getDatePlaced(), id.getUUID());
+    }
+
     @Override
     public <T extends AbstractOrder> List<T> findOrders(Class<T> orderType, LocalDate moreRecentThan, int offset,
                                                         int limit) {
-        String tableName = findTableName(orderType);
-
         MapSqlParameterSource parameters = new MapSqlParameterSource();
         parameters.addValue("date", moreRecentThan);
         parameters.addValue("offset", offset);
         parameters.addValue("limit", limit);
 
         return namedParameterJdbcTemplate
-                .query("SELECT * FROM " + tableName + " WHERE date_placed>=:date LIMIT :limit OFFSET :offset",
+                .query(OrderTable.forEntity(orderType).find,
                         parameters,
                         orderMapper(orderType));
     }
 
+    @Override
+    public <T extends AbstractOrder> List<T> findOrdersAfter(Class<T> orderType, LocalDate moreRecentThan,
+                                                             AbstractOrder.Id after, int limit) {
+        if (after == null) {
+            return findOrders(orderType, moreRecentThan, 0, limit);
+        }
+
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        parameters.addValue("date", moreRecentThan);
+        parameters.addValue("afterDate", after.getDatePlaced());
+        parameters.addValue("afterId", after.getUUID());
+        parameters.addValue("limit", limit);
+
+        return namedParameterJdbcTemplate
+                .query(OrderTable.forEntity(orderType).seek,
+                        parameters,
+                        orderMapper(orderType));
+    }
+
+    @Override
+    public <T extends AbstractOrder> long streamOrders(Class<T> orderType, LocalDate moreRecentThan,
+                                                       int fetchSize, long maxRows,
+                                                       Consumer<List<T>> pageConsumer) {
+        final String query = OrderTable.forEntity(orderType).stream;
+        final RowMapper<T> rowMapper = orderMapper(orderType);
+
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            // The driver only fetches in chunks through a cursor outside of auto-commit
+            boolean autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            try (PreparedStatement ps = connection.prepareStatement(query)) {
+                ps.setFetchSize(fetchSize);
+                // Zero is unlimited and the loop below caps larger limits
+                ps.setMaxRows(maxRows <= Integer.MAX_VALUE ? (int) maxRows : 0);
+                ps.setObject(1, moreRecentThan);
+
+                long total = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<T> page = new ArrayList<>(fetchSize);
+                    while (total < maxRows && rs.next()) {
+                        page.add(rowMapper.mapRow(rs, (int) total++));
+                        if (page.size() == fetchSize) {
+                            pageConsumer.accept(page);
+                            page = new ArrayList<>(fetchSize);
+                        }
+                    }
+                    if (!page.isEmpty()) {
+                        pageConsumer.accept(page);
+                    }
+                }
+                if (autoCommit) {
+                    connection.commit();
+                }
+                return total;
+            } catch (SQLException | RuntimeException e) {
+                if (autoCommit) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        });
+        return rows != null ? rows : 0;
+    }
+
     private <T extends AbstractOrder> RowMapper<T> orderMapper(Class<T> clazz) {
         return (rs, rowNum) -> {
             UUID uuid = rs.getObject("id", UUID.class);
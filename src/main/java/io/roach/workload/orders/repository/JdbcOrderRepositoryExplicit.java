@@ -2,10 +2,10 @@ package io.roach.workload.orders.repository;
 
 import java.time.LocalDate;
 import java.util.List;
-
-import javax.sql.DataSource;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,12 +13,13 @@ import org.springframework.transaction.annotation.Transactional;
 import io.roach.workload.Profiles;
 import io.roach.workload.common.aspect.TransactionBoundary;
 import io.roach.workload.orders.model.AbstractOrder;
+import io.roach.workload.orders.model.ShipmentStatus;
 
 @Repository
 @Profiles.Orders
 public class JdbcOrderRepositoryExplicit extends JdbcOrderRepository {
-    public JdbcOrderRepositoryExplicit(@Autowired DataSource dataSource) {
-        super(dataSource);
+    public JdbcOrderRepositoryExplicit(@Autowired JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
     }
 
     @Override
@@ -27,16 +28,61 @@ public class JdbcOrderRepositoryExplicit extends JdbcOrderRepository {
         super.insertOrders(orders, includeJson);
     }
 
+    @Override
+    @TransactionBoundary
+    public void insertOrders(OrderTable table, List<? extends AbstractOrder> orders, boolean includeJson) {
+        super.insertOrders(table, orders, includeJson);
+    }
+
     @Transactional(propagation = Propagation.NEVER)
     @Override
     public List readOrders(Class<? extends AbstractOrder> orderType, List<? extends AbstractOrder> templates) {
         return super.readOrders(orderType, templates);
     }
 
+    @Transactional(propagation = Propagation.NEVER)
+    @Override
+    public List<? extends AbstractOrder> readOrders(OrderTable table, List<? extends AbstractOrder> templates) {
+        return super.readOrders(table, templates);
+    }
+
+    @Override
+    @TransactionBoundary(readOnly = true)
+    public AbstractOrder findOrder(OrderTable table, AbstractOrder.Id id) {
+        return super.findOrder(table, id);
+    }
+
+    @Override
+    @TransactionBoundary
+    public int updateStatus(OrderTable table, AbstractOrder.Id id, ShipmentStatus expected, ShipmentStatus status) {
+        return super.updateStatus(table, id, expected, status);
+    }
+
+    @Override
+    @TransactionBoundary
+    public int deleteOrder(OrderTable table, AbstractOrder.Id id) {
+        return super.deleteOrder(table, id);
+    }
+
     @Override
     @TransactionBoundary(statementTimeout = "10s", idleInTransactionSessionTimeout = "5s", readOnly = true)
     public <T extends AbstractOrder> List<T> findOrders(Class<T> orderType, LocalDate moreRecentThan, int offset,
                                                         int limit) {
         return super.findOrders(orderType, moreRecentThan, offset, limit);
     }
+
+    @Override
+    @TransactionBoundary(statementTimeout = "10s", idleInTransactionSessionTimeout = "5s", readOnly = true)
+    public <T extends AbstractOrder> List<T> findOrdersAfter(Class<T> orderType, LocalDate moreRecentThan,
+                                                             AbstractOrder.Id after, int limit) {
+        return super.findOrdersAfter(orderType, moreRecentThan, after, limit);
+    }
+
+    @Override
+    @TransactionBoundary(idleInTransactionSessionTimeout = "5s", readOnly = true)
+    public <T extends AbstractOrder> long streamOrders(Class<T> orderType, LocalDate moreRecentThan,
+                                                       int fetchSize, long maxRows,
+                                                       Consumer<List<T>> pageConsumer) {
+        return super.streamOrders(orderType, moreRecentThan, fetchSize, maxRows, pageConsumer);
+    }
 }
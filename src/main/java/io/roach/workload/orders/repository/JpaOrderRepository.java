@@ -2,12 +2,16 @@ package io.roach.workload.orders.repository;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
@@ -65,11 +69,64 @@ public class JpaOrderRepository implements OrderRepository {
                                                         LocalDate moreRecentThan, int offset, int limit) {
         String entityName = orderType.getSimpleName();
         // Qualify type to avoid union all
-        return em.createQuery("select o from " + entityName + " o where type(o) = :orderType and o.datePlaced >= :date", orderType)
+        return em.createQuery("select o from " + entityName + " o where type(o) = :orderType"
+                        + " and o.id.datePlaced >= :date order by o.id.datePlaced, o.id.uuid", orderType)
                 .setParameter("orderType", orderType)
                 .setParameter("date", moreRecentThan)
                 .setFirstResult(offset)
                 .setMaxResults(limit)
                 .getResultList();
     }
+
+    @Override
+    public <T extends AbstractOrder> List<T> findOrdersAfter(Class<T> orderType, LocalDate moreRecentThan,
+                                                             AbstractOrder.Id after, int limit) {
+        if (after == null) {
+            return findOrders(orderType, moreRecentThan, 0, limit);
+        }
+        String entityName = orderType.getSimpleName();
+        return em.createQuery("select o from " + entityName + " o where type(o) = :orderType"
+                        + " and o.id.datePlaced >= :date"
+                        + " and (o.id.datePlaced > :afterDate or (o.id.datePlaced = :afterDate and o.id.uuid > :afterId))"
+                        + " order by o.id.datePlaced, o.id.uuid", orderType)
+                .setParameter("orderType", orderType)
+                .setParameter("date", moreRecentThan)
+                .setParameter("afterDate", after.getDatePlaced())
+                .setParameter("afterId", after.getUUID())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T extends AbstractOrder> long streamOrders(Class<T> orderType, LocalDate moreRecentThan,
+                                                       int fetchSize, long maxRows,
+                                                       Consumer<List<T>> pageConsumer) {
+        String entityName = orderType.getSimpleName();
+        long total = 0;
+        try (Stream<T> stream = em.createQuery("select o from " + entityName + " o where type(o) = :orderType"
+                        + " and o.id.datePlaced >= :date order by o.id.datePlaced, o.id.uuid", orderType)
+                .setParameter("orderType", orderType)
+                .setParameter("date", moreRecentThan)
+                .setMaxResults((int) Math.min(maxRows, Integer.MAX_VALUE))
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .getResultStream()) {
+            Iterator<T> it = stream.iterator();
+            List<T> page = new ArrayList<>(fetchSize);
+            while (total < maxRows && it.hasNext()) {
+                page.add(it.next());
+                total++;
+                if (page.size() == fetchSize) {
+                    pageConsumer.accept(page);
+                    page = new ArrayList<>(fetchSize);
+                    // Detach streamed entities to keep the persistence context from growing
+                    em.clear();
+                }
+            }
+            if (!page.isEmpty()) {
+                pageConsumer.accept(page);
+            }
+        }
+        return total;
+    }
 }
@@ -2,8 +2,10 @@ package io.roach.workload.orders.repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 import io.roach.workload.orders.model.AbstractOrder;
+import io.roach.workload.orders.model.ShipmentStatus;
 
 public interface OrderRepository {
     void insertOrders(List<? extends AbstractOrder> orders, boolean includeJson);
@@ -11,10 +13,74 @@ public interface OrderRepository {
     List<? extends AbstractOrder> readOrders(Class<? extends AbstractOrder> orderType,
                     List<? extends AbstractOrder> templates);
 
+    /**
+     * Insert orders into a given partition table. Implementations not addressing tables
+     * by name require the orders to be of the table's entity type.
+     */
+    default void insertOrders(OrderTable table, List<? extends AbstractOrder> orders, boolean includeJson) {
+        insertOrders(orders, includeJson);
+    }
+
+    default List<? extends AbstractOrder> readOrders(OrderTable table, List<? extends AbstractOrder> templates) {
+        return readOrders(table.getOrderType(), templates);
+    }
+
+    /**
+     * @return the order or null if not found
+     */
+    default AbstractOrder findOrder(OrderTable table, AbstractOrder.Id id) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Move an order to a new status, provided it's still in the expected status.
+     *
+     * @return number of orders updated, 0 or 1
+     */
+    default int updateStatus(OrderTable table, AbstractOrder.Id id, ShipmentStatus expected,
+                             ShipmentStatus status) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return number of orders deleted, 0 or 1
+     */
+    default int deleteOrder(OrderTable table, AbstractOrder.Id id) {
+        throw new UnsupportedOperationException();
+    }
+
     default <T extends AbstractOrder> List<T> findOrders(Class<T> orderType,
                                                          LocalDate moreRecentThan,
                                                          int offset,
                                                          int limit) {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Find orders by seeking past the (date_placed, id) key of the last order of the previous
+     * page, which unlike an offset doesn't require scanning the skipped rows.
+     *
+     * @param after key of the last order of the previous page or null for the first page
+     */
+    default <T extends AbstractOrder> List<T> findOrdersAfter(Class<T> orderType,
+                                                              LocalDate moreRecentThan,
+                                                              AbstractOrder.Id after,
+                                                              int limit) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stream orders in (date_placed, id) order through a server-side cursor, fetching and
+     * passing rows to the consumer in pages of the fetch size.
+     *
+     * @param maxRows max number of rows to stream
+     * @return number of orders streamed
+     */
+    default <T extends AbstractOrder> long streamOrders(Class<T> orderType,
+                                                        LocalDate moreRecentThan,
+                                                        int fetchSize,
+                                                        long maxRows,
+                                                        Consumer<List<T>> pageConsumer) {
+        throw new UnsupportedOperationException();
+    }
 }
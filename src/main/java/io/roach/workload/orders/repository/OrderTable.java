@@ -0,0 +1,145 @@
+package io.roach.workload.orders.repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.Table;
+
+import org.springframework.core.annotation.AnnotationUtils;
+
+import io.roach.workload.orders.model.AbstractOrder;
+import io.roach.workload.orders.model.Order1;
+
+/**
+ * An orders partition table with its SQL text resolved once, so that repeated statements
+ * keep the same text and hit the per connection prepared statement cache. Tables are
+ * identified by name, allowing JDBC access to any number of partitions and not just the
+ * ones mapped by an entity class.
+ */
+public final class OrderTable {
+    static final String COLUMNS = "id,"
+            + "order_number,"
+            + "bill_address1,"
+            + "bill_address2,"
+            + "bill_city,"
+            + "bill_country_name,"
+            + "bill_postcode,"
+            + "bill_to_first_name,"
+            + "bill_to_last_name,"
+            + "deliv_to_first_name,"
+            + "deliv_to_last_name,"
+            + "deliv_address1,"
+            + "deliv_address2,"
+            + "deliv_city,"
+            + "deliv_country_name,"
+            + "deliv_postcode,"
+            + "status,"
+            + "amount,"
+            + "currency,"
+            + "customer_id,"
+            + "payment_method_id,"
+            + "date_placed,"
+            + "date_updated,"
+            + "customer_profile";
+
+    private static final String INSERT_COLUMNS = " (" + COLUMNS + ")"
+            + "values (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+
+    private static final Map<String, OrderTable> tablesByName = new ConcurrentHashMap<>();
+
+    private static final Map<Class<?>, OrderTable> tablesByEntity = new ConcurrentHashMap<>();
+
+    /**
+     * @param partition the partition number (1-based)
+     * @return the table of a partition
+     */
+    public static OrderTable forPartition(int partition) {
+        if (partition <= 0) {
+            throw new IllegalArgumentException("Partition must be > 0: " + partition);
+        }
+        return forName("order_" + partition);
+    }
+
+    public static OrderTable forName(String tableName) {
+        return tablesByName.computeIfAbsent(tableName, name -> new OrderTable(name, null));
+    }
+
+    /**
+     * @param entityType the entity type mapped to the table by {@link Table}
+     * @return the table of an entity type
+     */
+    public static OrderTable forEntity(Class<?> entityType) {
+        return tablesByEntity.computeIfAbsent(entityType, type -> {
+            Table t = AnnotationUtils.findAnnotation(type, Table.class);
+            if (t == null) {
+                throw new IllegalArgumentException("No @Table annotation found for: " + type.getName());
+            }
+            OrderTable table = new OrderTable(t.name(), type.asSubclass(AbstractOrder.class));
+            tablesByName.put(table.name, table);
+            return table;
+        });
+    }
+
+    private final String name;
+
+    private final Class<? extends AbstractOrder> entityType;
+
+    final String insert;
+
+    final String copy;
+
+    final String read;
+
+    final String find;
+
+    final String seek;
+
+    final String stream;
+
+    final String get;
+
+    final String updateStatus;
+
+    final String delete;
+
+    private OrderTable(String name, Class<? extends AbstractOrder> entityType) {
+        this.name = name;
+        this.entityType = entityType;
+        this.insert = "INSERT INTO " + name + INSERT_COLUMNS;
+        this.copy = "COPY " + name + " (" + COLUMNS + ") FROM STDIN";
+        this.read = "SELECT * FROM " + name + " WHERE (date_placed,id) IN (:ids)";
+        this.find = "SELECT * FROM " + name + " WHERE date_placed>=:date "
+                + "ORDER BY date_placed,id LIMIT :limit OFFSET :offset";
+        this.seek = "SELECT * FROM " + name + " WHERE date_placed>=:date "
+                + "AND (date_placed,id)>(:afterDate,:afterId) ORDER BY date_placed,id LIMIT :limit";
+        this.stream = "SELECT * FROM " + name + " WHERE date_placed>=? ORDER BY date_placed,id";
+        this.get = "SELECT * FROM " + name + " WHERE date_placed=? AND id=?";
+        this.updateStatus = "UPDATE " + name + " SET status=?,date_updated=? "
+                + "WHERE date_placed=? AND id=? AND status=?";
+        this.delete = "DELETE FROM " + name + " WHERE date_placed=? AND id=?";
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the entity type mapped to this table or null if none
+     */
+    public Class<? extends AbstractOrder> getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * @return the type to create order rows with, being the entity type or a plain order
+     * type for tables without an entity mapping
+     */
+    public Class<? extends AbstractOrder> getOrderType() {
+        return entityType != null ? entityType : Order1.class;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -2,12 +2,11 @@ package io.roach.workload.query;
 
 import java.io.FileReader;
 import java.io.IOException;
+import java.sql.PreparedStatement;
 import java.time.Duration;
 import java.util.stream.IntStream;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.FileSystemResource;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementCallback;
 import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
@@ -19,13 +18,12 @@ import org.springframework.util.FileCopyUtils;
 import io.roach.workload.Profiles;
 import io.roach.workload.common.AbstractWorkload;
 import io.roach.workload.common.util.DurationFormat;
+import io.roach.workload.common.util.LoadProfile;
+import io.roach.workload.common.util.Pacer;
 
 @Profiles.Query
 @ShellComponent
 public class QueryWorkload extends AbstractWorkload {
-    @Autowired
-    private JdbcTemplate jdbcTemplate;
-
     @Override
     public String prompt() {
         return "query:$ ";
@@ -45,11 +43,20 @@ public class QueryWorkload extends AbstractWorkload {
     public void run(
             @ShellOption(help = "SQL statement or file (with 'file:' prefix)", defaultValue = "select 1") String sql,
             @ShellOption(help = "number of threads", defaultValue = "-1") int threads,
-            @ShellOption(help = "execution duration (expression)", defaultValue = "30m") String duration
+            @ShellOption(help = "execution duration (expression)", defaultValue = "30m") String duration,
+            @ShellOption(help = "target rate for open-loop mode, e.g. 5000/s (none for closed-loop)", defaultValue = "none") String rate,
+            @ShellOption(help = "load profile of level@duration stages, e.g. 10@1m,50@2m or 500/s@1m,1000/s@1m (none for fixed load)", defaultValue = "none") String profile,
+            @ShellOption(help = "statement executions before server-side prepare (0 disables, default for connection default)", defaultValue = "default") String prepareThreshold
     ) throws IOException {
-        Duration runtimeDuration = DurationFormat.parseDuration(duration);
+        LoadProfile loadProfile = LoadProfile.parse(profile);
+        Duration runtimeDuration = loadProfile != null
+                ? loadProfile.getTotalDuration()
+                : DurationFormat.parseDuration(duration);
+        Pacer pacer = createPacer(loadProfile, rate);
 
-        if (threads <= 0) {
+        if (loadProfile != null && !loadProfile.isRateLevels()) {
+            threads = loadProfile.getMaxWorkers();
+        } else if (threads <= 0) {
             threads = Runtime.getRuntime().availableProcessors();
         }
 
@@ -63,12 +70,21 @@ public class QueryWorkload extends AbstractWorkload {
         console.green(">> Starting workload <<\n");
         console.yellow("SQL: %s\n", finalSql);
         console.yellow("Number of threads: %s\n", threads);
-        console.yellow("Runtime duration: %s\n", duration);
+        console.yellow("Runtime duration: %s\n", runtimeDuration);
+        console.yellow("Target rate: %s\n", pacer != null ? String.format("%.1f/s", pacer.getRate()) : "closed-loop");
+        console.yellow("Load profile: %s\n", loadProfile != null ? loadProfile : "none");
+        console.yellow("Prepare threshold: %s\n", prepareThreshold);
+
+        applyPrepareThreshold(prepareThreshold);
 
         IntStream.rangeClosed(1, threads).forEach(value -> {
             boundedExecutor.submit(() -> {
-                jdbcTemplate.execute(finalSql, (PreparedStatementCallback<Object>) ps -> null);
-            }, "query #" + value, runtimeDuration);
+                jdbcTemplate.execute(finalSql, (PreparedStatementCallback<Boolean>) PreparedStatement::execute);
+            }, "query #" + value, runtimeDuration, pacer, loadProfile != null ? loadProfile.gate(value) : null);
         });
+
+        if (loadProfile != null) {
+            startLoadProfile(loadProfile, pacer);
+        }
     }
 }
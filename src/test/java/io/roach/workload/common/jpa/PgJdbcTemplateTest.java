@@ -0,0 +1,47 @@
+package io.roach.workload.common.jpa;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGStatement;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+public class PgJdbcTemplateTest {
+    private static Statement fakeStatement(AtomicInteger prepareThreshold) {
+        return (Statement) Proxy.newProxyInstance(PgJdbcTemplateTest.class.getClassLoader(),
+                new Class[] {Statement.class, PGStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isWrapperFor":
+                            return ((Class<?>) args[0]).isInstance(proxy);
+                        case "unwrap":
+                            return proxy;
+                        case "setPrepareThreshold":
+                            prepareThreshold.set((Integer) args[0]);
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    @Test
+    public void whenPrepareThresholdSet_thenApplyToStatements() throws SQLException {
+        AtomicInteger prepareThreshold = new AtomicInteger(-1);
+        PgJdbcTemplate jdbcTemplate = new PgJdbcTemplate(new SimpleDriverDataSource());
+
+        jdbcTemplate.applyStatementSettings(fakeStatement(prepareThreshold));
+        Assertions.assertEquals(-1, prepareThreshold.get());
+
+        jdbcTemplate.setPrepareThreshold(0);
+        jdbcTemplate.applyStatementSettings(fakeStatement(prepareThreshold));
+        Assertions.assertEquals(0, prepareThreshold.get());
+
+        jdbcTemplate.setPrepareThreshold(1);
+        jdbcTemplate.applyStatementSettings(fakeStatement(prepareThreshold));
+        Assertions.assertEquals(1, prepareThreshold.get());
+    }
+}
@@ -0,0 +1,48 @@
+package io.roach.workload.common.jpa;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+public class RoutingDataSourceTest {
+    private static RoutingDataSource routingDataSource(RoutingDataSource.Fallback fallback) {
+        // Pools are not started until first connection checkout
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        pools.put("us_east", new HikariDataSource());
+        pools.put("eu_west", new HikariDataSource());
+        pools.put("apac_south", new HikariDataSource());
+        return new RoutingDataSource(pools, fallback);
+    }
+
+    @Test
+    public void whenRoutingKeyBound_thenSelectMatchingPool() {
+        RoutingDataSource dataSource = routingDataSource(RoutingDataSource.Fallback.round_robin);
+        RoutingDataSource.withRoutingKey("eu_west",
+                () -> Assertions.assertEquals("eu_west", dataSource.determineCurrentLookupKey())).run();
+        Assertions.assertNull(RoutingDataSource.getRoutingKey());
+    }
+
+    @Test
+    public void whenRoutingKeyUnknown_thenFallBackRoundRobin() {
+        RoutingDataSource dataSource = routingDataSource(RoutingDataSource.Fallback.round_robin);
+        Set<Object> keys = new HashSet<>();
+        RoutingDataSource.withRoutingKey("us_west", () -> {
+            for (int i = 0; i < 3; i++) {
+                keys.add(dataSource.determineCurrentLookupKey());
+            }
+        }).run();
+        Assertions.assertEquals(dataSource.getPools().keySet(), keys);
+    }
+
+    @Test
+    public void whenNoRoutingKey_thenFallBackLeastActive() {
+        RoutingDataSource dataSource = routingDataSource(RoutingDataSource.Fallback.parse("least-active"));
+        Assertions.assertEquals("us_east", dataSource.determineCurrentLookupKey());
+    }
+}
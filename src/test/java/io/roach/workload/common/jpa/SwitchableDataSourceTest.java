@@ -0,0 +1,94 @@
+package io.roach.workload.common.jpa;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+public class SwitchableDataSourceTest {
+    private static final int ITERATIONS = 10;
+
+    private static <T> T fake(Class<T> type, Object returnValue) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[] {type},
+                (proxy, method, args) -> {
+                    if (method.getReturnType().isInstance(returnValue)) {
+                        return returnValue;
+                    }
+                    if (method.getReturnType() == int.class) {
+                        return 1;
+                    }
+                    if (method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    return null;
+                }));
+    }
+
+    private static DataSource fakeDataSource() {
+        PreparedStatement ps = fake(PreparedStatement.class, null);
+        Connection connection = fake(Connection.class, ps);
+        return fake(DataSource.class, connection);
+    }
+
+    private static DataSource tracingProxy(DataSource dataSource) {
+        return ProxyDataSourceBuilder
+                .create(dataSource)
+                .name("SQL-Trace")
+                .asJson()
+                .countQuery()
+                .logQueryBySlf4j(SLF4JLogLevel.TRACE, "io.roach.SQL_TRACE")
+                .multiline()
+                .build();
+    }
+
+    private static void insertLoop(DataSource dataSource, int iterations) throws SQLException {
+        for (int i = 0; i < iterations; i++) {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement ps = connection.prepareStatement("INSERT INTO t (id, v) VALUES (?, ?)")) {
+                ps.setLong(1, i);
+                ps.setString(2, "v");
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    @Test
+    public void whenSwitchingTracing_thenUseMatchingPath() throws SQLException {
+        DataSource target = fakeDataSource();
+        SwitchableDataSource dataSource = new SwitchableDataSource(target, tracingProxy(target), false);
+
+        Assertions.assertFalse(Proxy.getInvocationHandler(dataSource.getConnection()).getClass().getName()
+                .startsWith("net.ttddyy"));
+
+        dataSource.setTracing(true);
+        Assertions.assertTrue(Proxy.getInvocationHandler(dataSource.getConnection()).getClass().getName()
+                .startsWith("net.ttddyy"));
+    }
+
+    @Test
+    public void whenTracingOff_thenBypassProxyListeners() throws SQLException {
+        DataSource target = fakeDataSource();
+        AtomicInteger queries = new AtomicInteger();
+        DataSource proxy = ProxyDataSourceBuilder
+                .create(target)
+                .afterQuery((executionInfo, queryInfoList) -> queries.incrementAndGet())
+                .build();
+        SwitchableDataSource dataSource = new SwitchableDataSource(target, proxy, false);
+
+        insertLoop(dataSource, ITERATIONS);
+        Assertions.assertEquals(0, queries.get());
+
+        dataSource.setTracing(true);
+        insertLoop(dataSource, ITERATIONS);
+        Assertions.assertEquals(ITERATIONS, queries.get());
+    }
+}
@@ -0,0 +1,46 @@
+package io.roach.workload.common.util;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CallMetricTest {
+    @Test
+    public void whenWorkersRemovedBeforeStageEnds_thenStageKeepsCalls() {
+        CallMetric callMetric = new CallMetric();
+        callMetric.beginStage(1, "10", 10);
+
+        CallMetric.Context context = callMetric.add("writer #1");
+        for (int i = 0; i < 5; i++) {
+            context.exit(context.enter(), null);
+        }
+        context.exit(context.enter(), new RuntimeException());
+        callMetric.remove("writer #1");
+
+        callMetric.endStage();
+
+        List<CallMetric.StageResult> results = callMetric.getStageResults();
+        Assertions.assertEquals(1, results.size());
+        Assertions.assertEquals(6, results.get(0).getSnapshot().getTotalCount());
+    }
+
+    @Test
+    public void whenContextExcluded_thenNotInStageTotals() {
+        CallMetric callMetric = new CallMetric();
+        callMetric.excludeFromTotals("generator");
+        callMetric.beginStage(1, "10", 10);
+
+        CallMetric.Context writer = callMetric.add("writer");
+        CallMetric.Context generator = callMetric.add("generator");
+        for (int i = 0; i < 3; i++) {
+            writer.exit(writer.enter(), null);
+            generator.exit(generator.enter(), null);
+        }
+        callMetric.remove("generator");
+
+        callMetric.endStage();
+
+        Assertions.assertEquals(3, callMetric.getStageResults().get(0).getSnapshot().getTotalCount());
+    }
+}
@@ -0,0 +1,37 @@
+package io.roach.workload.common.util;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CopyTextEncoderTest {
+    @Test
+    public void whenEncodingRow_thenWriteTabSeparatedEscapedFields() {
+        UUID id = UUID.randomUUID();
+
+        CopyTextEncoder encoder = new CopyTextEncoder(1024);
+        encoder.append(id)
+                .append(CopyTextEncoder.encode("user:"), 42)
+                .append("a\tb\\c\nd")
+                .append("åäö")
+                .append(-1234567890L)
+                .append(true)
+                .appendNull()
+                .endRow();
+
+        Assertions.assertEquals(id + "\tuser:42\ta\\tb\\\\c\\nd\tåäö\t-1234567890\tt\t\\N\n", encoder.toString());
+        Assertions.assertEquals(1, encoder.getRows());
+        Assertions.assertFalse(encoder.isFull());
+    }
+
+    @Test
+    public void whenEncodingRandomUUIDs_thenProduceValidVersion4() {
+        CopyTextEncoder encoder = new CopyTextEncoder(1024);
+        encoder.appendRandomUUID().endRow();
+
+        UUID uuid = UUID.fromString(encoder.toString().trim());
+        Assertions.assertEquals(4, uuid.version());
+        Assertions.assertEquals(2, uuid.variant());
+    }
+}
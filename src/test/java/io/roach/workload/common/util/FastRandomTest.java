@@ -0,0 +1,52 @@
+package io.roach.workload.common.util;
+
+import java.util.Currency;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FastRandomTest {
+    @Test
+    public void whenSameSeed_thenSameSequence() {
+        FastRandom a = new FastRandom(42);
+        FastRandom b = new FastRandom(42);
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals(a.nextUUID(), b.nextUUID());
+            Assertions.assertSame(a.firstName(), b.firstName());
+            Assertions.assertEquals(a.word(20), b.word(20));
+        }
+    }
+
+    @Test
+    public void whenGeneratingUUID_thenVersion4() {
+        UUID uuid = new FastRandom(1).nextUUID();
+        Assertions.assertEquals(4, uuid.version());
+        Assertions.assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    public void whenGeneratingMoney_thenWithinBounds() {
+        FastRandom random = new FastRandom(7);
+        Currency usd = Currency.getInstance("USD");
+        for (int i = 0; i < 1000; i++) {
+            Money money = random.money(50.00, 100.00, usd);
+            Assertions.assertEquals(2, money.getAmount().scale());
+            Assertions.assertTrue(money.getAmount().doubleValue() >= 50.00);
+            Assertions.assertTrue(money.getAmount().doubleValue() < 100.00);
+        }
+    }
+
+    @Test
+    public void whenReseeded_thenThreadGeneratorRestarts() {
+        try {
+            FastRandom.setSeed(123);
+            long first = FastRandom.current().nextLong();
+            FastRandom.setSeed(123);
+            Assertions.assertEquals(first, FastRandom.current().nextLong());
+            Assertions.assertEquals(14, FastRandom.current().phoneNumber().length());
+        } finally {
+            FastRandom.clearSeed();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package io.roach.workload.common.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class JsonPayloadGeneratorTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void whenGenerating_thenValidJsonWithRequestedShape() throws Exception {
+        String json = new JsonPayloadGenerator(3, 2, 4, 0).generate();
+
+        JsonNode root = objectMapper.readTree(json);
+        Assertions.assertEquals(3, root.get("users").size());
+        JsonNode user = root.get("users").get(0);
+        Assertions.assertEquals(2, user.get("addresses").size());
+        Assertions.assertEquals(user.get("firstName").asText().toLowerCase(), user.get("userName").asText());
+        Assertions.assertEquals(1, user.at("/attributes/child/child/child/level").asInt());
+        Assertions.assertFalse(root.has("padding"));
+    }
+
+    @Test
+    public void whenTargetSize_thenPaddedToAtLeastTarget() throws Exception {
+        String json = new JsonPayloadGenerator(1, 1, 0, 8192).generate();
+        Assertions.assertTrue(json.length() >= 8192);
+        Assertions.assertTrue(json.length() < 8192 + 128);
+        Assertions.assertTrue(objectMapper.readTree(json).has("padding"));
+    }
+
+    @Test
+    public void whenReusingBuffer_thenPayloadsAreIndependent() {
+        String first = new JsonPayloadGenerator(1, 0, 0, 4096).generate();
+        String second = new JsonPayloadGenerator(1, 0, 0, 0).generate();
+        Assertions.assertTrue(first.length() >= 4096);
+        Assertions.assertTrue(second.length() < 1024);
+    }
+}
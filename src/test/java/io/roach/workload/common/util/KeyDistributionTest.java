@@ -0,0 +1,49 @@
+package io.roach.workload.common.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class KeyDistributionTest {
+    private static int[] sample(KeyDistribution distribution, int samples) {
+        int[] counts = new int[distribution.size()];
+        for (int i = 0; i < samples; i++) {
+            counts[distribution.nextIndex()]++;
+        }
+        return counts;
+    }
+
+    @Test
+    public void whenUsingZipfian_thenFirstKeysAreHottest() {
+        int[] counts = sample(KeyDistribution.parse("zipf:0.99", 1000), 100_000);
+        Assertions.assertTrue(counts[0] > counts[1]);
+        Assertions.assertTrue(counts[1] > counts[100]);
+        Assertions.assertTrue(counts[0] > 100_000 / 20);
+
+        int[] latest = sample(KeyDistribution.parse("latest", 1000), 100_000);
+        Assertions.assertTrue(latest[999] > latest[998]);
+        Assertions.assertTrue(latest[999] > latest[0]);
+    }
+
+    @Test
+    public void whenUsingHotspot_thenHotKeysReceiveMostOps() {
+        int[] counts = sample(KeyDistribution.parse("hotspot:0.9:0.1", 100), 100_000);
+        int hot = 0;
+        for (int i = 0; i < 10; i++) {
+            hot += counts[i];
+        }
+        Assertions.assertEquals(0.9, hot / 100_000.0, 0.02);
+    }
+
+    @Test
+    public void whenUsingSequential_thenCycleThroughKeys() {
+        KeyDistribution distribution = KeyDistribution.parse("sequential", 3);
+        Assertions.assertEquals(0, distribution.nextIndex());
+        Assertions.assertEquals(1, distribution.nextIndex());
+        Assertions.assertEquals(2, distribution.nextIndex());
+        Assertions.assertEquals(0, distribution.nextIndex());
+
+        Assertions.assertEquals(0, KeyDistribution.parse("uniform", 1).nextIndex());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> KeyDistribution.parse("zipf:1.5", 10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> KeyDistribution.parse("gaussian", 10));
+    }
+}
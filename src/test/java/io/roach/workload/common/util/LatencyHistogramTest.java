@@ -0,0 +1,45 @@
+package io.roach.workload.common.util;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void whenRecordingValues_thenPercentilesAreWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.rangeClosed(1, 10_000).forEach(value -> histogram.record(value * 10L)); // 10us..100ms
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(10_000, snapshot.getTotalCount());
+        Assertions.assertEquals(50.0, snapshot.valueAtPercentile(.5), 50.0 * 0.02);
+        Assertions.assertEquals(99.0, snapshot.valueAtPercentile(.99), 99.0 * 0.02);
+        Assertions.assertEquals(100.0, snapshot.maxValue(), 100.0 * 0.02);
+        Assertions.assertEquals(50.005, snapshot.mean(), 0.001);
+    }
+
+    @Test
+    public void whenSubtractingSnapshots_thenReturnInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.range(0, 100).forEach(value -> histogram.record(1_000));
+        LatencyHistogram.Snapshot first = histogram.snapshot();
+        IntStream.range(0, 100).forEach(value -> histogram.record(5_000));
+        LatencyHistogram.Snapshot interval = histogram.snapshot().minus(first);
+
+        Assertions.assertEquals(100, interval.getTotalCount());
+        Assertions.assertEquals(5.0, interval.valueAtPercentile(.5), 5.0 * 0.02);
+        Assertions.assertEquals(5.0, interval.mean(), 0.001);
+    }
+
+    @Test
+    public void whenIndexingValues_thenBucketsAreMonotonic() {
+        int previous = -1;
+        for (long v = 0; v < LatencyHistogram.HIGHEST_TRACKABLE_VALUE; v = v * 2 + 1) {
+            int index = LatencyHistogram.indexFor(v);
+            Assertions.assertTrue(index >= previous);
+            Assertions.assertTrue(LatencyHistogram.highestEquivalentValue(index) >= v);
+            previous = index;
+        }
+    }
+}
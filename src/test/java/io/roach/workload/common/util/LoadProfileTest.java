@@ -0,0 +1,40 @@
+package io.roach.workload.common.util;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LoadProfileTest {
+    @Test
+    public void whenParsingWorkerLevels_thenGateWorkersPerStage() {
+        LoadProfile profile = LoadProfile.parse("10@1m,50@2m,100@5m");
+        Assertions.assertNotNull(profile);
+        Assertions.assertFalse(profile.isRateLevels());
+        Assertions.assertEquals(3, profile.getStages().size());
+        Assertions.assertEquals(100, profile.getMaxWorkers());
+        Assertions.assertEquals(Duration.ofMinutes(8), profile.getTotalDuration());
+
+        BooleanSupplier gate = profile.gate(20);
+        Assertions.assertFalse(gate.getAsBoolean());
+        Assertions.assertTrue(profile.advance());
+        Assertions.assertTrue(gate.getAsBoolean());
+        Assertions.assertTrue(profile.advance());
+        Assertions.assertFalse(profile.advance());
+        Assertions.assertEquals(3, profile.currentStage().getOrdinal());
+    }
+
+    @Test
+    public void whenParsingRateLevels_thenReturnOpsPerSecond() {
+        LoadProfile profile = LoadProfile.parse("500/s@30s,1K/s@30s");
+        Assertions.assertNotNull(profile);
+        Assertions.assertTrue(profile.isRateLevels());
+        Assertions.assertEquals(500, profile.currentStage().getLevel());
+        Assertions.assertTrue(profile.gate(1000).getAsBoolean());
+
+        Assertions.assertNull(LoadProfile.parse("none"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("10@1m,500/s@1m"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LoadProfile.parse("10"));
+    }
+}
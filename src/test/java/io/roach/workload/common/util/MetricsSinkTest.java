@@ -0,0 +1,93 @@
+package io.roach.workload.common.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MetricsSinkTest {
+    @TempDir
+    Path tempDir;
+
+    private CallMetric sampledCallMetric() {
+        CallMetric callMetric = new CallMetric();
+        CallMetric.Context context = callMetric.add("writer \"1\"");
+        for (int i = 0; i < 10; i++) {
+            context.exit(context.enter(), null);
+        }
+        context.exit(context.enter(), new IllegalStateException());
+        callMetric.sample();
+        return callMetric;
+    }
+
+    @Test
+    public void whenExportingToCsv_thenWriteHeaderAndRows() throws IOException {
+        Path path = tempDir.resolve("metrics.csv");
+        CsvMetricsSink sink = new CsvMetricsSink(path);
+        sink.accept(sampledCallMetric().getIntervals());
+        sink.close();
+
+        List<String> lines = Files.readAllLines(path);
+        Assertions.assertEquals(2, lines.size());
+        Assertions.assertTrue(lines.get(0).startsWith("timestamp,metric,"));
+        Assertions.assertTrue(lines.get(1).contains(",\"writer \"\"1\"\"\","));
+        Assertions.assertTrue(lines.get(1).contains(",10,1,"));
+        Assertions.assertEquals(1, sink.getRowsWritten());
+    }
+
+    @Test
+    public void whenExportingRetries_thenUseSameColumns() throws IOException {
+        RetryMetric retryMetric = new RetryMetric();
+        RetryMetric.Context context = retryMetric.add("submit");
+        context.recordBackoff(5);
+        context.recordOutcome(2, RetryMetric.Outcome.recovered);
+        retryMetric.sample();
+
+        Path path = tempDir.resolve("metrics.csv");
+        CsvMetricsSink sink = new CsvMetricsSink(path);
+        sink.accept(sampledCallMetric().getIntervals());
+        sink.acceptRetries(retryMetric.getIntervals());
+        sink.close();
+
+        List<String> lines = Files.readAllLines(path);
+        Assertions.assertEquals(3, lines.size());
+        int columns = lines.get(0).split(",", -1).length;
+        Assertions.assertEquals(columns, lines.get(1).split(",", -1).length);
+        Assertions.assertEquals(columns, lines.get(2).split(",", -1).length);
+        Assertions.assertTrue(lines.get(2).contains(",\"retry:submit\","));
+        Assertions.assertTrue(lines.get(2).endsWith(",1,2.00,2,5.0,1,0"));
+    }
+
+    @Test
+    public void whenExportingToJsonLines_thenWriteOneObjectPerRow() throws IOException {
+        Path path = tempDir.resolve("metrics.json");
+        JsonLinesMetricsSink sink = new JsonLinesMetricsSink(path);
+        sink.accept(sampledCallMetric().getIntervals());
+        sink.close();
+
+        List<String> lines = Files.readAllLines(path);
+        Assertions.assertEquals(1, lines.size());
+        Assertions.assertTrue(lines.get(0).contains("\"ops\":11"));
+        Assertions.assertTrue(lines.get(0).contains("\"ok\":10"));
+        Assertions.assertTrue(lines.get(0).contains("\"fail\":1"));
+    }
+
+    @Test
+    public void whenSamplingAgain_thenExportIntervalCounts() throws IOException {
+        CallMetric callMetric = sampledCallMetric();
+        CallMetric.Context context = callMetric.add("writer \"1\"");
+        for (int i = 0; i < 3; i++) {
+            context.exit(context.enter(), null);
+        }
+        callMetric.sample();
+
+        CallMetric.Interval interval = callMetric.getIntervals().get(0);
+        Assertions.assertEquals(3, interval.getSnapshot().getTotalCount());
+        Assertions.assertEquals(3, interval.getCallSuccessful());
+        Assertions.assertEquals(0, interval.getCallFailed());
+    }
+}
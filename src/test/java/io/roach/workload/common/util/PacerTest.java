@@ -0,0 +1,32 @@
+package io.roach.workload.common.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PacerTest {
+    @Test
+    public void whenParsingRates_thenReturnOpsPerSecond() {
+        Assertions.assertEquals(5000, Pacer.parseRate("5000/s"));
+        Assertions.assertEquals(5000, Pacer.parseRate("5000"));
+        Assertions.assertEquals(1500, Pacer.parseRate("1.5K/s"));
+        Assertions.assertEquals(10, Pacer.parseRate("600/m"));
+        Assertions.assertEquals(0, Pacer.parseRate("none"));
+        Assertions.assertNull(Pacer.parse("none"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Pacer.parseRate("10/x"));
+    }
+
+    @Test
+    public void whenAcquiringSlots_thenReleaseOnSchedule() throws InterruptedException {
+        Pacer pacer = new Pacer(1000);
+        long first = pacer.acquire();
+        long last = first;
+        for (int i = 0; i < 100; i++) {
+            last = pacer.acquire();
+        }
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), last - first);
+        Assertions.assertTrue(System.nanoTime() >= last);
+    }
+}
@@ -0,0 +1,32 @@
+package io.roach.workload.common.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PoolSizeAdvisorTest {
+    @Test
+    public void whenThroughputPlateaus_thenPreferSmallestPool() {
+        List<PoolSizeAdvisor.Probe> probes = Arrays.asList(
+                new PoolSizeAdvisor.Probe(8, 1000, 5, 20, 12),
+                new PoolSizeAdvisor.Probe(16, 1900, 6, 25, 4),
+                new PoolSizeAdvisor.Probe(32, 1950, 10, 60, 0),
+                new PoolSizeAdvisor.Probe(64, 1800, 25, 150, 0));
+
+        PoolSizeAdvisor.Probe best = PoolSizeAdvisor.recommend(probes, 100);
+        Assertions.assertNotNull(best);
+        Assertions.assertEquals(16, best.getPoolSize());
+    }
+
+    @Test
+    public void whenLatencyTargetExceeded_thenSkipProbe() {
+        List<PoolSizeAdvisor.Probe> probes = Arrays.asList(
+                new PoolSizeAdvisor.Probe(8, 1000, 5, 20, 12),
+                new PoolSizeAdvisor.Probe(16, 2000, 6, 80, 0));
+
+        Assertions.assertEquals(8, PoolSizeAdvisor.recommend(probes, 50).getPoolSize());
+        Assertions.assertNull(PoolSizeAdvisor.recommend(probes, 10));
+    }
+}
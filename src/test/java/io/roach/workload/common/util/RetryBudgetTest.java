@@ -0,0 +1,62 @@
+package io.roach.workload.common.util;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RetryBudgetTest {
+    @Test
+    public void whenTokensDrained_thenDenyRetriesUntilRefilled() {
+        RetryBudget budget = new RetryBudget(2, 0.5, 0, 0, Duration.ofSeconds(1));
+        Assertions.assertTrue(budget.tryRetry());
+        Assertions.assertTrue(budget.tryRetry());
+        Assertions.assertFalse(budget.tryRetry());
+        Assertions.assertEquals(1, budget.getRetriesDenied());
+
+        budget.onSuccess();
+        Assertions.assertFalse(budget.tryRetry());
+        budget.onSuccess();
+        Assertions.assertTrue(budget.tryRetry());
+
+        for (int i = 0; i < 100; i++) {
+            budget.onSuccess();
+        }
+        Assertions.assertEquals(2.0, budget.getAvailableTokens(), 0.001);
+    }
+
+    @Test
+    public void whenBudgetDisabled_thenAlwaysGrantRetries() {
+        RetryBudget budget = new RetryBudget(0, 0.1, 0, 0, Duration.ofSeconds(1));
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertTrue(budget.tryRetry());
+        }
+        Assertions.assertEquals(RetryBudget.State.closed, budget.getState());
+    }
+
+    @Test
+    public void whenRetryRatioAboveThreshold_thenOpenCircuit() throws InterruptedException {
+        RetryBudget budget = new RetryBudget(0, 0.1, 0.5, 10, Duration.ofMinutes(1));
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(budget.tryCall());
+            budget.tryRetry();
+        }
+        Thread.sleep(1100);
+        Assertions.assertFalse(budget.tryCall());
+        Assertions.assertEquals(RetryBudget.State.open, budget.getState());
+        Assertions.assertEquals(1.0, budget.getLastRetryRatio(), 0.001);
+        Assertions.assertEquals(1, budget.getCallsShed());
+        Assertions.assertEquals(1, budget.getCircuitOpened());
+        Assertions.assertTrue(budget.getOpenMillisRemaining() > 50_000);
+    }
+
+    @Test
+    public void whenComputingDecorrelatedJitter_thenStayWithinBounds() {
+        long backoff = 10;
+        for (int i = 0; i < 1000; i++) {
+            long next = RetryBudget.decorrelatedJitter(10, 500, backoff);
+            Assertions.assertTrue(next >= 10 && next <= Math.min(500, backoff * 3), "" + next);
+            backoff = next;
+        }
+    }
+}
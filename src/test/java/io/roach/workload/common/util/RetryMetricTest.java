@@ -0,0 +1,47 @@
+package io.roach.workload.common.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RetryMetricTest {
+    @Test
+    public void whenSampling_thenReportIntervalDistributions() {
+        RetryMetric retryMetric = new RetryMetric();
+        RetryMetric.Context context = retryMetric.add("TransactionService.submitTransaction(..)");
+
+        for (int i = 0; i < 98; i++) {
+            context.recordOutcome(1, RetryMetric.Outcome.success);
+        }
+        context.recordBackoff(10);
+        context.recordBackoff(20);
+        context.recordOutcome(3, RetryMetric.Outcome.recovered);
+        context.recordOutcome(1, RetryMetric.Outcome.failed);
+
+        retryMetric.sample();
+
+        RetryMetric.Interval interval = retryMetric.getIntervals().get(0);
+        Assertions.assertEquals(100, interval.getCalls());
+        Assertions.assertEquals(2, interval.getRetries());
+        Assertions.assertEquals(1.02, interval.attemptsMean(), 0.001);
+        Assertions.assertEquals(1, interval.attemptsAtPercentile(.99));
+        Assertions.assertEquals(3, interval.attemptsMax());
+        Assertions.assertEquals(30, interval.getBackoffMillis(), 1);
+        Assertions.assertEquals(1, interval.getOutcomeCount(RetryMetric.Outcome.recovered));
+        Assertions.assertEquals(1, interval.getOutcomeCount(RetryMetric.Outcome.failed));
+
+        retryMetric.sample();
+
+        interval = retryMetric.getIntervals().get(0);
+        Assertions.assertEquals(0, interval.getCalls());
+        Assertions.assertEquals(0, interval.getRetries());
+        Assertions.assertEquals(98, interval.getOutcomeCount(RetryMetric.Outcome.success));
+    }
+
+    @Test
+    public void whenExceedingTrackedAttempts_thenClampToLastBucket() {
+        RetryMetric retryMetric = new RetryMetric();
+        retryMetric.add("m").recordOutcome(100, RetryMetric.Outcome.exhausted);
+        retryMetric.sample();
+        Assertions.assertEquals(RetryMetric.MAX_TRACKED_ATTEMPTS, retryMetric.getIntervals().get(0).attemptsMax());
+    }
+}
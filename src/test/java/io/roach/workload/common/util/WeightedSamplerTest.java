@@ -0,0 +1,49 @@
+package io.roach.workload.common.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class WeightedSamplerTest {
+    private static final List<Double> WEIGHTS = Arrays.asList(1.0, 0.0, 3.0, 6.0);
+
+    private static int[] sample(WeightedSampler<Double> sampler, int samples) {
+        int[] counts = new int[WEIGHTS.size()];
+        for (int i = 0; i < samples; i++) {
+            counts[sampler.nextIndex()]++;
+        }
+        return counts;
+    }
+
+    private static void assertProportional(int[] counts, double[] expected, int samples) {
+        for (int i = 0; i < counts.length; i++) {
+            Assertions.assertEquals(expected[i], counts[i] / (double) samples, 0.02, "index " + i);
+        }
+    }
+
+    @Test
+    public void whenSamplingAliasTable_thenSelectProportionalToWeight() {
+        AliasTable<Double> table = new AliasTable<>(WEIGHTS, Double::doubleValue);
+        int[] counts = sample(table, 100_000);
+        Assertions.assertEquals(0, counts[1]);
+        assertProportional(counts, new double[] {.1, 0, .3, .6}, 100_000);
+    }
+
+    @Test
+    public void whenUpdatingFenwickWeights_thenSelectProportionalToNewWeight() {
+        FenwickSampler<Double> sampler = new FenwickSampler<>(WEIGHTS, Double::doubleValue);
+        Assertions.assertEquals(10, sampler.getTotalWeight(), 0.0001);
+        assertProportional(sample(sampler, 100_000), new double[] {.1, 0, .3, .6}, 100_000);
+
+        sampler.add(3, -6);
+        sampler.set(1, 6);
+        Assertions.assertEquals(0, sampler.getWeight(3));
+        Assertions.assertEquals(10, sampler.getTotalWeight(), 0.0001);
+
+        int[] counts = sample(sampler, 100_000);
+        Assertions.assertEquals(0, counts[3]);
+        assertProportional(counts, new double[] {.1, .6, .3, 0}, 100_000);
+    }
+}
@@ -0,0 +1,40 @@
+package io.roach.workload.orders;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.roach.workload.orders.OperationMix.Operation;
+
+public class OperationMixTest {
+    @Test
+    public void whenParsingMix_thenWeightsAndSamplesMatch() {
+        OperationMix mix = OperationMix.parse("insert:60, read:25,UPDATESTATUS:10,delete:5");
+        Assertions.assertFalse(mix.isInsertOnly());
+        Assertions.assertEquals(10, mix.getWeight(Operation.updateStatus));
+        Assertions.assertEquals("insert:60,read:25,updateStatus:10,delete:5", mix.toString());
+
+        Map<Operation, Integer> counts = new EnumMap<>(Operation.class);
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(mix.next(), 1, Integer::sum);
+        }
+        Assertions.assertEquals(0.60, counts.get(Operation.insert) / 100_000.0, 0.02);
+        Assertions.assertEquals(0.05, counts.get(Operation.delete) / 100_000.0, 0.01);
+    }
+
+    @Test
+    public void whenDefaultMix_thenInsertOnly() {
+        OperationMix mix = OperationMix.parse("insert:100,delete:0");
+        Assertions.assertTrue(mix.isInsertOnly());
+        Assertions.assertEquals(Operation.insert, mix.next());
+    }
+
+    @Test
+    public void whenInvalidMix_thenRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OperationMix.parse("upsert:10"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OperationMix.parse("read"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> OperationMix.parse("read:0"));
+    }
+}
@@ -0,0 +1,18 @@
+package io.roach.workload.orders.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.roach.workload.orders.model.Customer;
+import io.roach.workload.orders.model.CustomerConverter;
+import io.roach.workload.orders.model.OrderEntities;
+
+public class CustomerJsonTest {
+    @Test
+    public void whenWritingCustomer_thenSameAsConverter() {
+        Customer customer = OrderEntities.randomCustomer();
+        Assertions.assertEquals(new CustomerConverter().convertToDatabaseColumn(customer),
+                JdbcOrderRepository.toJson(customer));
+        Assertions.assertTrue(JdbcOrderRepository.toJson(customer).contains("\"createdTime\":\""));
+    }
+}
@@ -0,0 +1,28 @@
+package io.roach.workload.orders.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.roach.workload.orders.model.Order1;
+import io.roach.workload.orders.model.Order7;
+
+public class OrderTableTest {
+    @Test
+    public void whenResolvingEntity_thenTableNameFromAnnotation() {
+        OrderTable table = OrderTable.forEntity(Order7.class);
+        Assertions.assertEquals("order_7", table.getName());
+        Assertions.assertEquals(Order7.class, table.getOrderType());
+        Assertions.assertSame(table, OrderTable.forEntity(Order7.class));
+        Assertions.assertTrue(table.insert.startsWith("INSERT INTO order_7 ("));
+    }
+
+    @Test
+    public void whenPartitionBeyondEntities_thenTableByName() {
+        OrderTable table = OrderTable.forPartition(1500);
+        Assertions.assertEquals("order_1500", table.getName());
+        Assertions.assertNull(table.getEntityType());
+        Assertions.assertEquals(Order1.class, table.getOrderType());
+        Assertions.assertSame(table, OrderTable.forPartition(1500));
+        Assertions.assertEquals("COPY order_1500 (" + OrderTable.COLUMNS + ") FROM STDIN", table.copy);
+    }
+}